@@ -0,0 +1,219 @@
+package com.api.cotacao.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.api.cotacao.CotacaoCafeApplication;
+import com.api.cotacao.service.CotacaoService;
+import com.api.cotacao.utils.FileUtils;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Teste de carga: N clientes concorrentes contra a aplicação real (Tomcat +
+ * PostgreSQL embarcado), uma vez com threads de plataforma e outra com
+ * {@code spring.threads.virtual.enabled=true}. Mede vazão e latências
+ * (p50/p99/máx) de /periodo (servido do cache de respostas) e de
+ * /resumo/mensal (uma consulta JDBC por requisição).
+ *
+ * <p>Argumentos: clientes (padrão 1000) e segundos de medição (padrão 20),
+ * depois de um aquecimento de 5 s. Os clientes rodam na mesma JVM, em threads
+ * virtuais, com um HttpClient compartilhado.
+ *
+ * <p>Resultado numa máquina de 1 vCPU (servidor e clientes dividindo o
+ * mesmo núcleo), 1000 clientes, 20 s, Hikari com 10 conexões e Tomcat com
+ * 200 threads no modo plataforma:
+ * <pre>
+ * cenário                 modo        req/s    p50 ms   p99 ms   máx ms  erros
+ * /periodo                plataforma    403     2376     4684     5853      0
+ * /resumo/mensal          plataforma    189     6267    10031    13285      0
+ * /periodo                virtual       497     2135     2824     2853      0
+ * /resumo/mensal          virtual       216     5390     7136    12040      0
+ * </pre>
+ * A CPU satura antes das threads, então os números absolutos são baixos; a
+ * diferença está na fila: com 200 threads de plataforma 800 conexões esperam
+ * no Tomcat, com threads virtuais todas são atendidas e o p99 cai ~40% em
+ * /periodo e ~30% em /resumo. Em /resumo o teto continua sendo o pool de 10
+ * conexões nos dois modos (aumentar o Hikari vale mais que as threads).
+ *
+ * <p>Pinning: o driver do PostgreSQL (42.7) e o HikariCP já usam
+ * ReentrantLock; o único bloco synchronized do caminho de leitura
+ * (RespostaPeriodoCache) virou ReentrantLock. Os synchronized restantes
+ * (DevSqlLogger) só rodam na configuração. Para conferir:
+ * {@code -Djdk.tracePinnedThreads=short}.
+ */
+public final class CargaPeriodo {
+
+    private static final int AQUECIMENTO_SEGUNDOS = 5;
+
+    private static final String PERIODO = "/api/cotacao/periodo?inicio=1900/01&fim=2024/12";
+    private static final String RESUMO = "/api/cotacao/resumo/mensal?inicio=2000/01&fim=2024/12";
+
+    private CargaPeriodo() {}
+
+    public static void main(String[] args) throws Exception {
+        int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        // o devtools lê esta chave antes das properties do builder
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        List<String> linhas = new ArrayList<>();
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            boolean importado = false;
+
+            for (boolean virtuais : new boolean[] {false, true}) {
+                try (ConfigurableApplicationContext context = subir(postgres, virtuais)) {
+                    if (!importado) {
+                        importar(context.getBean(CotacaoService.class));
+                        importado = true;
+                    }
+
+                    int porta = ((WebServerApplicationContext) context).getWebServer().getPort();
+                    String modo = virtuais ? "virtual" : "plataforma";
+
+                    for (String cenario : new String[] {PERIODO, RESUMO}) {
+                        URI uri = URI.create("http://localhost:" + porta + cenario);
+                        carga(uri, clientes, AQUECIMENTO_SEGUNDOS);
+                        Resultado r = carga(uri, clientes, segundos);
+                        linhas.add(String.format("%-23s %-10s %6d %8d %8d %8d %6d",
+                                cenario.substring("/api/cotacao".length(), cenario.indexOf('?')), modo,
+                                r.total() / segundos, r.percentil(50), r.percentil(99), r.percentil(100), r.erros()));
+                    }
+                }
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%d clientes, %d s, %d processadores%n", clientes, segundos,
+                Runtime.getRuntime().availableProcessors());
+        System.out.println("cenário                 modo        req/s    p50 ms   p99 ms   máx ms  erros");
+        linhas.forEach(System.out::println);
+    }
+
+    private static ConfigurableApplicationContext subir(EmbeddedPostgres postgres, boolean virtuais) {
+        return new SpringApplicationBuilder(CotacaoCafeApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtuais,
+                        "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "spring.datasource.driver-class-name=org.postgresql.Driver",
+                        "spring.jpa.hibernate.ddl-auto=validate",
+                        "app.developer=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    // 1900-01 .. 2024-12, como no CotacaoServiceBenchmark
+    private static void importar(CotacaoService service) throws Exception {
+        Path arquivo = Files.createTempFile("cotacao-carga-", ".json");
+        StringBuilder sb = new StringBuilder("[");
+        for (int k = 0; k < 1500; k++) {
+            if (k > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"mesAno\":\"")
+              .append(String.format("%02d/%d", 1 + (k % 12), 1900 + k / 12))
+              .append("\",\"valor\":")
+              .append(500 + (k % 1000) * 0.37)
+              .append('}');
+        }
+        sb.append(']');
+        Files.writeString(arquivo, sb);
+
+        try {
+            service.importarDeJson(arquivo.toString());
+        } finally {
+            FileUtils.deleteQuietly(arquivo);
+        }
+    }
+
+    /** Cada cliente repete a requisição até o prazo, guardando a latência de cada uma. */
+    private static Resultado carga(URI uri, int clientes, int segundos) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        HttpRequest requisicao = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+
+        long prazo = System.nanoTime() + Duration.ofSeconds(segundos).toNanos();
+        AtomicLong erros = new AtomicLong();
+
+        List<Future<long[]>> tarefas = new ArrayList<>(clientes);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                tarefas.add(executor.submit(() -> {
+                    long[] latencias = new long[256];
+                    int n = 0;
+                    while (System.nanoTime() < prazo) {
+                        long inicio = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> resposta = http.send(requisicao, HttpResponse.BodyHandlers.ofByteArray());
+                            if (resposta.statusCode() != 200) {
+                                erros.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            erros.incrementAndGet();
+                            continue;
+                        }
+                        if (n == latencias.length) {
+                            latencias = Arrays.copyOf(latencias, n * 2);
+                        }
+                        latencias[n++] = System.nanoTime() - inicio;
+                    }
+                    return Arrays.copyOf(latencias, n);
+                }));
+            }
+        }
+
+        int total = 0;
+        for (Future<long[]> tarefa : tarefas) {
+            total += tarefa.get().length;
+        }
+        long[] todas = new long[total];
+        int pos = 0;
+        for (Future<long[]> tarefa : tarefas) {
+            long[] parte = tarefa.get();
+            System.arraycopy(parte, 0, todas, pos, parte.length);
+            pos += parte.length;
+        }
+        Arrays.sort(todas);
+
+        http.shutdownNow();
+        return new Resultado(todas, erros.get());
+    }
+
+    private record Resultado(long[] latencias, long erros) {
+
+        int total() {
+            return latencias.length;
+        }
+
+        /** Em ms. */
+        long percentil(int p) {
+            if (latencias.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(p / 100.0 * latencias.length) - 1;
+            return latencias[Math.max(indice, 0)] / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.api.cotacao.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.api.cotacao.CotacaoCafeApplication;
+import com.api.cotacao.DTO.CotacaoCafePeriodoDTO;
+import com.api.cotacao.cache.SerieFormato;
+import com.api.cotacao.db.DAOController;
+import com.api.cotacao.entity.CotacaoCafeEntity;
+import com.api.cotacao.select.CotacaoSelect;
+import com.api.cotacao.service.CotacaoService;
+import com.api.cotacao.utils.FileUtils;
+import com.api.cotacao.utils.Utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Montagem dos DTOs de /periodo sobre a aplicação real, com um PostgreSQL
+ * embarcado e o esquema das migrações. Compara o caminho em cache do service
+ * com as consultas diretas ao banco, e o JSON de /periodo com os formatos
+ * de exportação (CSV, colunar, binário).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CotacaoServiceBenchmark {
+
+    // 1900-01 .. 2024-12: 1500 meses
+    private static final int ANO_INICIAL = 1900;
+    private static final int MESES = 1500;
+
+    private final LocalDate inicio = LocalDate.of(ANO_INICIAL, 1, 1);
+    private final LocalDate fim = LocalDate.of(ANO_INICIAL + MESES / 12, 12, 31);
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private CotacaoService service;
+    private DAOController dao;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+
+        context = new SpringApplicationBuilder(CotacaoCafeApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "spring.datasource.driver-class-name=org.postgresql.Driver",
+                        "spring.jpa.hibernate.ddl-auto=validate",
+                        "spring.devtools.restart.enabled=false",
+                        "app.developer=false",
+                        "logging.level.root=WARN")
+                .run();
+
+        service = context.getBean(CotacaoService.class);
+        dao = context.getBean(DAOController.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        Path arquivo = Files.createTempFile("cotacao-bench-", ".json");
+        StringBuilder sb = new StringBuilder("[");
+        for (int k = 0; k < MESES; k++) {
+            if (k > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"mesAno\":\"")
+              .append(String.format("%02d/%d", 1 + (k % 12), ANO_INICIAL + k / 12))
+              .append("\",\"valor\":")
+              .append(500 + (k % 1000) * 0.37)
+              .append('}');
+        }
+        sb.append(']');
+        Files.writeString(arquivo, sb);
+
+        try {
+            service.importarDeJson(arquivo.toString());
+        } finally {
+            FileUtils.deleteQuietly(arquivo);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public List<CotacaoCafePeriodoDTO> servicePeriodoCache() {
+        return service.buscarPorPeriodo(inicio, fim);
+    }
+
+    @Benchmark
+    public List<CotacaoCafePeriodoDTO> selectPeriodoDTO() {
+        return CotacaoSelect.buscarPorPeriodoDTO(dao, inicio, fim);
+    }
+
+    /** Caminho original do service: projeção em entidade e conversão para DTO. */
+    @Benchmark
+    public List<CotacaoCafePeriodoDTO> selectPeriodoEntidades() {
+        List<CotacaoCafeEntity> cotacaoList = CotacaoSelect.buscarPorPeriodo(dao, inicio, fim);
+
+        List<CotacaoCafePeriodoDTO> lista = new ArrayList<>(cotacaoList.size());
+        for (CotacaoCafeEntity cotacao : cotacaoList) {
+            lista.add(new CotacaoCafePeriodoDTO(
+                    cotacao.getDataReferencia(),
+                    Utils.round(cotacao.getValor(), 2)
+            ));
+        }
+        return lista;
+    }
+
+    /** Corpo JSON de /periodo sem o cache de respostas: DTOs + Jackson. */
+    @Benchmark
+    public byte[] periodoJson() throws Exception {
+        return objectMapper.writeValueAsBytes(service.buscarPorPeriodo(inicio, fim));
+    }
+
+    @Benchmark
+    public byte[] exportarCsv() {
+        return service.exportarPorPeriodo(null, null, inicio, fim, SerieFormato.Formato.CSV);
+    }
+
+    @Benchmark
+    public byte[] exportarColunar() {
+        return service.exportarPorPeriodo(null, null, inicio, fim, SerieFormato.Formato.COLUNAR);
+    }
+
+    @Benchmark
+    public byte[] exportarBinario() {
+        return service.exportarPorPeriodo(null, null, inicio, fim, SerieFormato.Formato.BINARIO);
+    }
+}
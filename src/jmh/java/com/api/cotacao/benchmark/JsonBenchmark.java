@@ -0,0 +1,87 @@
+package com.api.cotacao.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.api.cotacao.DTO.CotacaoCafeDTO;
+import com.api.cotacao.utils.FileUtils;
+import com.api.cotacao.utils.Utils;
+
+/**
+ * Leitura do arquivo de importação: String inteira (Utils), File direto
+ * (FileUtils) e streaming em blocos (Utils.streamJsonList).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"1000", "100000"})
+    public int registros;
+
+    private Path arquivo;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        arquivo = Files.createTempFile("cotacao-bench-", ".json");
+
+        StringBuilder sb = new StringBuilder(registros * 60).append('[');
+        for (int k = 0; k < registros; k++) {
+            if (k > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"mesAno\":\"")
+              .append(String.format("%02d/%d", 1 + (k % 12), 1900 + (k / 12) % 200))
+              .append("\",\"valor\":")
+              .append(500 + (k % 1000) * 0.37)
+              .append(",\"tipo\":\"Café Robusta\"}");
+        }
+        sb.append(']');
+
+        Files.writeString(arquivo, sb);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtils.deleteQuietly(arquivo);
+    }
+
+    @Benchmark
+    public List<CotacaoCafeDTO> utilsReadJsonList() throws IOException {
+        return Utils.readJsonList(arquivo, CotacaoCafeDTO.class);
+    }
+
+    @Benchmark
+    public List<CotacaoCafeDTO> fileUtilsReadJsonList() throws IOException {
+        return FileUtils.readJsonList(arquivo, CotacaoCafeDTO.class);
+    }
+
+    @Benchmark
+    public long utilsStreamJsonList(Blackhole bh) throws IOException {
+        try (InputStream in = FileUtils.openInputStream(arquivo)) {
+            return Utils.streamJsonList(in, CotacaoCafeDTO.class, 5000, bh::consume);
+        }
+    }
+}
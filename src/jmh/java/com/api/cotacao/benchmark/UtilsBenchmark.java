@@ -0,0 +1,60 @@
+package com.api.cotacao.benchmark;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.api.cotacao.utils.Utils;
+
+/**
+ * Parse de mês/ano: roda por linha importada e por requisição de /periodo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+
+    private static final int TOTAL = 1024;
+
+    private final String[] mesAno = new String[TOTAL];
+    private final String[] anoMes = new String[TOTAL];
+    private int i;
+
+    @Setup
+    public void setup() {
+        for (int k = 0; k < TOTAL; k++) {
+            int ano = 1990 + (k % 35);
+            int mes = 1 + (k % 12);
+            mesAno[k] = String.format("%02d/%d", mes, ano);
+            anoMes[k] = String.format("%d/%02d", ano, mes);
+        }
+    }
+
+    @Benchmark
+    public LocalDate parseMesAno() {
+        return Utils.parseMesAno(mesAno[i++ & (TOTAL - 1)]);
+    }
+
+    @Benchmark
+    public LocalDate parseAnoMes() {
+        return Utils.parseAnoMes(anoMes[i++ & (TOTAL - 1)]);
+    }
+
+    @Benchmark
+    public int parseMesAnoCompacto() {
+        return Utils.parseMesAnoCompacto(mesAno[i++ & (TOTAL - 1)]);
+    }
+}
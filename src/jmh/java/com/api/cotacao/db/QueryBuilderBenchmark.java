@@ -0,0 +1,67 @@
+package com.api.cotacao.db;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.api.cotacao.entity.CotacaoCafeEntity;
+
+/**
+ * Custos do QueryBuilder que não dependem do banco: montagem da JPQL e
+ * mapeamento de linhas de projeção para a entidade.
+ * Fica no pacote db para alcançar o mapeamento package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBuilderBenchmark {
+
+    private static final List<String> CAMPOS = List.of("dataReferencia", "valor");
+
+    @Param({"100", "10000"})
+    public int linhas;
+
+    private final LocalDate inicio = LocalDate.of(2000, 1, 1);
+    private final LocalDate fim = LocalDate.of(2024, 12, 31);
+
+    private List<Object[]> rows;
+
+    @Setup
+    public void setup() {
+        rows = new ArrayList<>(linhas);
+        for (int k = 0; k < linhas; k++) {
+            rows.add(new Object[]{LocalDate.ofEpochDay(10_000 + k), 5_000_000L + k * 2_500L});
+        }
+    }
+
+    @Benchmark
+    public String construirJpql() {
+        return new QueryBuilder(null)
+                .select("dataReferencia", "valor")
+                .from(CotacaoCafeEntity.class)
+                .where("dataReferencia", Condicao.BETWEEN, inicio, fim)
+                .orderBy("dataReferencia", true)
+                .build();
+    }
+
+    @Benchmark
+    public List<?> mapToEntities() {
+        return QueryBuilder.mapToEntities(CotacaoCafeEntity.class, CAMPOS, rows);
+    }
+}
@@ -0,0 +1,17 @@
+package com.api.cotacao.DTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Cotações agrupadas num intervalo (dia, semana, mês ou ano) iniciado em {@code data}.
+ */
+public record CotacaoCafeAgregadoDTO(
+        LocalDate data,
+        BigDecimal abertura,
+        BigDecimal maxima,
+        BigDecimal minima,
+        BigDecimal fechamento,
+        BigDecimal media,
+        int pontos
+) {}
@@ -0,0 +1,13 @@
+package com.api.cotacao.DTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Página de cotações por período. {@code proximo} é o cursor (última data da
+ * página) a ser passado em {@code after}; nulo quando não há mais páginas.
+ */
+public record CotacaoCafePaginaDTO(
+        List<CotacaoCafePeriodoDTO> itens,
+        LocalDate proximo
+) {}
@@ -3,7 +3,20 @@ package com.api.cotacao.DTO;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+import com.api.cotacao.utils.PrecoFixo;
+
 public record CotacaoCafePeriodoDTO(
         LocalDate data,
         BigDecimal valorCafe
-) {}
+) {
+
+    // usado pela expressão de construtor JPQL (SELECT NEW) sobre cotcaf_valor
+    public CotacaoCafePeriodoDTO(LocalDate data, Long valorFixo) {
+        this(data, valorFixo == null ? null : PrecoFixo.paraBigDecimal(valorFixo, 2));
+    }
+
+    /** A partir do preço em ponto fixo, sem boxing. */
+    public static CotacaoCafePeriodoDTO of(LocalDate data, long valorFixo) {
+        return new CotacaoCafePeriodoDTO(data, PrecoFixo.paraBigDecimal(valorFixo, 2));
+    }
+}
@@ -0,0 +1,21 @@
+package com.api.cotacao.DTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Resumo mensal/anual. {@code variacaoAnual} é a variação percentual da média
+ * sobre o mesmo intervalo do ano anterior (nula se ele não existir).
+ */
+public record CotacaoCafeResumoDTO(
+        LocalDate data,
+        String origem,
+        String tipo,
+        BigDecimal abertura,
+        BigDecimal maxima,
+        BigDecimal minima,
+        BigDecimal fechamento,
+        BigDecimal media,
+        int pontos,
+        BigDecimal variacaoAnual
+) {}
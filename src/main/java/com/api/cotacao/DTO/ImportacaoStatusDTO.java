@@ -0,0 +1,13 @@
+package com.api.cotacao.DTO;
+
+public record ImportacaoStatusDTO(
+        Long id,
+        String nomeArquivo,
+        String status,
+        long registrosLidos,
+        long registrosGravados,
+        Double registrosPorSegundo,
+        Long etaSegundos,
+        Long tempoExecucaoMs,
+        String mensagemErro
+) {}
@@ -0,0 +1,24 @@
+package com.api.cotacao.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Contadores "cache.gets" dos caches da aplicação, nos mesmos nomes/tags que
+ * o Micrometer usa para os caches do Spring ({@code cache}, {@code result} = hit/miss).
+ */
+final class CacheMetricas {
+
+    static final String SERIE = "cotacao.serie";
+    static final String RESPOSTA = "cotacao.resposta-periodo";
+
+    private CacheMetricas() {}
+
+    static Counter acessos(MeterRegistry registry, String cache, boolean acerto) {
+        return Counter.builder("cache.gets")
+                .description("Acessos ao cache")
+                .tag("cache", cache)
+                .tag("result", acerto ? "hit" : "miss")
+                .register(registry);
+    }
+}
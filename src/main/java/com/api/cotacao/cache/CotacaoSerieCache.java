@@ -0,0 +1,302 @@
+package com.api.cotacao.cache;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.api.cotacao.DTO.CotacaoCafePaginaDTO;
+import com.api.cotacao.DTO.CotacaoCafePeriodoDTO;
+import com.api.cotacao.db.DAOController;
+import com.api.cotacao.entity.CotacaoCafeEntity;
+import com.api.cotacao.select.CotacaoSelect;
+import com.api.cotacao.utils.PrecoFixo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache read-through da série de preços por (origem, tipo).
+ * A série inteira fica em dois arrays primitivos ordenados por data
+ * (epoch-day e valor em ponto fixo) e qualquer janela [inicio, fim] é
+ * respondida por busca binária, sem ir ao banco. Origem/tipo nulos significam "todos".
+ * Na subida as séries saem do {@link SerieSnapshot}, quando houver um válido.
+ * Só entram no cache chaves de pares (origem, tipo) que existem no banco;
+ * as demais recebem uma série vazia sem consulta.
+ */
+@Component
+public class CotacaoSerieCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CotacaoSerieCache.class);
+
+    private final DAOController dao;
+    private final VersaoDados versaoDados;
+    private final SerieSnapshot snapshot;
+
+    // cache.gets{cache="serie"}: razão de acerto = hit / (hit + miss)
+    private final Counter acertos;
+    private final Counter faltas;
+
+    static final Serie VAZIA = new Serie(new int[0], new long[0]);
+
+    // trocada a cada invalidação: uma carga iniciada antes grava na geração velha, que ninguém mais lê
+    private volatile Geracao atual = new Geracao();
+
+    public CotacaoSerieCache(DAOController dao, VersaoDados versaoDados, SerieSnapshot snapshot, MeterRegistry registry) {
+        this.dao = dao;
+        this.versaoDados = versaoDados;
+        this.snapshot = snapshot;
+        this.acertos = CacheMetricas.acessos(registry, CacheMetricas.SERIE, true);
+        this.faltas = CacheMetricas.acessos(registry, CacheMetricas.SERIE, false);
+
+        Gauge.builder("cache.size", this, c -> c.atual.series.size())
+                .tag("cache", CacheMetricas.SERIE)
+                .register(registry);
+    }
+
+    public List<CotacaoCafePeriodoDTO> buscar(String origem, String tipo, LocalDate inicio, LocalDate fim) {
+        Serie serie = serie(origem, tipo);
+
+        int de = serie.primeiroIndice(inicio);
+        int ate = serie.fimExclusivo(fim);
+
+        List<CotacaoCafePeriodoDTO> lista = new ArrayList<>(Math.max(ate - de, 0));
+        for (int i = de; i < ate; i++) {
+            lista.add(CotacaoCafePeriodoDTO.of(LocalDate.ofEpochDay(serie.dia(i)), serie.valorFixo(i)));
+        }
+        return lista;
+    }
+
+    /**
+     * Página por keyset: pontos com data > {@code depoisDe} (ou a partir de
+     * {@code inicio}), até {@code limite}. Uma data nunca é dividida entre
+     * páginas; com várias séries na chave a página pode passar do limite.
+     */
+    public CotacaoCafePaginaDTO buscarPagina(String origem, String tipo, LocalDate inicio, LocalDate fim,
+                                             LocalDate depoisDe, int limite) {
+        return pagina(serie(origem, tipo), inicio, fim, depoisDe, limite);
+    }
+
+    static CotacaoCafePaginaDTO pagina(Serie serie, LocalDate inicio, LocalDate fim, LocalDate depoisDe, int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("limite deve ser positivo: " + limite);
+        }
+
+        int de = serie.primeiroIndice(inicio);
+        if (depoisDe != null) {
+            de = Math.max(de, serie.fimExclusivo(depoisDe));
+        }
+        int fimJanela = serie.fimExclusivo(fim);
+
+        int ate = de + Math.min(limite, Math.max(fimJanela - de, 0));
+        while (ate > de && ate < fimJanela && serie.dia(ate) == serie.dia(ate - 1)) {
+            ate++;
+        }
+
+        List<CotacaoCafePeriodoDTO> itens = new ArrayList<>(Math.max(ate - de, 0));
+        for (int i = de; i < ate; i++) {
+            itens.add(CotacaoCafePeriodoDTO.of(LocalDate.ofEpochDay(serie.dia(i)), serie.valorFixo(i)));
+        }
+
+        LocalDate proximo = ate < fimJanela ? LocalDate.ofEpochDay(serie.dia(ate - 1)) : null;
+        return new CotacaoCafePaginaDTO(itens, proximo);
+    }
+
+    public Serie serie(String origem, String tipo) {
+        Geracao geracao = atual;
+        Chave chave = new Chave(origem, tipo);
+
+        Serie serie = geracao.series.get(chave);
+        if (serie != null) {
+            acertos.increment();
+            return serie;
+        }
+        faltas.increment();
+
+        // origem/tipo vêm da requisição: chave sem dados não ocupa o cache
+        if (!chavesComDados(geracao).contains(chave)) {
+            return VAZIA;
+        }
+
+        serie = snapshot.buscar(origem, tipo);
+        if (serie == null) {
+            serie = carregar(chave);
+        }
+
+        Serie existente = geracao.series.putIfAbsent(chave, serie);
+        return existente != null ? existente : serie;
+    }
+
+    /** Quantos pares (origem, tipo) com dados a chave abrange (0 se nenhum, 1 se é uma série só). */
+    public int pares(String origem, String tipo) {
+        int pares = 0;
+        for (Chave chave : chavesComDados(atual)) {
+            if (chave.origem() != null && chave.tipo() != null
+                    && (origem == null || origem.equals(chave.origem()))
+                    && (tipo == null || tipo.equals(chave.tipo()))) {
+                pares++;
+            }
+        }
+        return pares;
+    }
+
+    public void invalidar() {
+        snapshot.descartar();
+        atual = new Geracao();
+        // depois da troca: quem vir a versão nova já não encontra a série antiga
+        versaoDados.alterada();
+        log.info("Cache de séries de cotação invalidado.");
+
+        snapshot.agendarGravacao();
+    }
+
+    /**
+     * Invalida quando a transação corrente confirmar; sem transação ativa,
+     * invalida na hora.
+     */
+    public void invalidarAposCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidar();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidar();
+            }
+        });
+    }
+
+    private Set<Chave> chavesComDados(Geracao geracao) {
+        Set<Chave> chaves = geracao.chaves;
+        if (chaves == null) {
+            chaves = snapshot.chaves();
+            if (chaves == null) {
+                chaves = new HashSet<>();
+                for (CotacaoCafeEntity par : CotacaoSelect.buscarPares(dao)) {
+                    chaves.addAll(new Chave(par.getOrigemDado(), par.getTipoCafe()).comAgregados());
+                }
+            }
+            geracao.chaves = chaves;
+        }
+        return chaves;
+    }
+
+    // sem transação readOnly de propósito: com réplicas (ReplicasConfig) a carga
+    // fica no primário, senão uma réplica atrasada logo após a importação
+    // deixaria a série antiga no cache até a próxima invalidação
+    private Serie carregar(Chave chave) {
+        List<CotacaoCafeEntity> cotacaoList = CotacaoSelect.buscarSerie(dao, chave.origem(), chave.tipo());
+
+        int[] dias = new int[cotacaoList.size()];
+        long[] valores = new long[cotacaoList.size()];
+
+        for (int i = 0; i < cotacaoList.size(); i++) {
+            CotacaoCafeEntity cotacao = cotacaoList.get(i);
+            dias[i] = (int) cotacao.getDataReferencia().toEpochDay();
+            valores[i] = cotacao.getValorFixo();
+        }
+
+        log.info("Série de cotação carregada: origem={}, tipo={}, pontos={}",
+                chave.origem(), chave.tipo(), dias.length);
+
+        return new Serie(dias, valores);
+    }
+
+    record Chave(String origem, String tipo) {
+
+        /** O próprio par e as chaves agregadas ("todos") em que ele entra. */
+        Set<Chave> comAgregados() {
+            Set<Chave> chaves = new LinkedHashSet<>(4);
+            chaves.add(this);
+            chaves.add(new Chave(origem, null));
+            chaves.add(new Chave(null, tipo));
+            chaves.add(new Chave(null, null));
+            return chaves;
+        }
+    }
+
+    private static final class Geracao {
+        final Map<Chave, Serie> series = new ConcurrentHashMap<>();
+        // chaves que têm dados; carregadas na primeira falta da geração
+        volatile Set<Chave> chaves;
+    }
+
+    /**
+     * Série imutável ordenada por data. Pode conter datas repetidas quando a
+     * chave agrega várias origens/tipos. Os buffers são arrays do heap ou
+     * fatias do arquivo mapeado do {@link SerieSnapshot}; só há leitura por índice.
+     */
+    public static final class Serie {
+
+        private final IntBuffer dias;
+        // preço em ponto fixo (ver PrecoFixo)
+        private final LongBuffer valores;
+
+        public Serie(int[] dias, long[] valores) {
+            this(IntBuffer.wrap(dias), LongBuffer.wrap(valores));
+        }
+
+        Serie(IntBuffer dias, LongBuffer valores) {
+            if (dias.limit() != valores.limit()) {
+                throw new IllegalArgumentException("dias e valores devem ter o mesmo tamanho");
+            }
+            this.dias = dias;
+            this.valores = valores;
+        }
+
+        public int tamanho() {
+            return dias.limit();
+        }
+
+        public int dia(int i) {
+            return dias.get(i);
+        }
+
+        public long valorFixo(int i) {
+            return valores.get(i);
+        }
+
+        public double valor(int i) {
+            return PrecoFixo.paraDouble(valores.get(i));
+        }
+
+        /** Índice do primeiro ponto com data >= inicio. */
+        public int primeiroIndice(LocalDate inicio) {
+            return lowerBound(inicio.toEpochDay());
+        }
+
+        /** Índice logo após o último ponto com data <= fim. */
+        public int fimExclusivo(LocalDate fim) {
+            return lowerBound(fim.toEpochDay() + 1);
+        }
+
+        private int lowerBound(long dia) {
+            int lo = 0;
+            int hi = dias.limit();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (dias.get(mid) < dia) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.api.cotacao.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Respostas de /periodo já serializadas em JSON (e opcionalmente em gzip),
+ * por (inicio, fim, origem, tipo), com as datas já fechadas no mês inteiro.
+ * Limitado por quantidade (LRU) e por TTL; uma entrada gravada numa versão
+ * dos dados anterior à atual ({@link VersaoDados}) vale como ausente, então
+ * toda importação invalida o cache.
+ */
+@Component
+public class RespostaPeriodoCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RespostaPeriodoCache.class);
+
+    private final VersaoDados versaoDados;
+    private final ObjectMapper objectMapper;
+
+    private final int maxEntradas;
+    private final long ttlNanos;
+    private final boolean gzip;
+
+    private final Counter acertos;
+    private final Counter faltas;
+
+    // em ordem de acesso: a mais antiga sai quando passa de maxEntradas
+    private final Map<Chave, Resposta> respostas;
+    // ReentrantLock e não synchronized: em contenção, a thread virtual estaciona sem prender a thread portadora
+    private final ReentrantLock trava = new ReentrantLock();
+
+    public RespostaPeriodoCache(VersaoDados versaoDados,
+                                ObjectMapper objectMapper,
+                                MeterRegistry registry,
+                                @Value("${app.periodo.cache.max-entradas:256}") int maxEntradas,
+                                @Value("${app.periodo.cache.ttl-segundos:600}") long ttlSegundos,
+                                @Value("${app.periodo.cache.gzip:true}") boolean gzip) {
+        this.versaoDados = versaoDados;
+        this.objectMapper = objectMapper;
+        this.maxEntradas = maxEntradas;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSegundos);
+        this.gzip = gzip;
+        this.acertos = CacheMetricas.acessos(registry, CacheMetricas.RESPOSTA, true);
+        this.faltas = CacheMetricas.acessos(registry, CacheMetricas.RESPOSTA, false);
+        this.respostas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Chave, Resposta> maisAntiga) {
+                return size() > RespostaPeriodoCache.this.maxEntradas;
+            }
+        };
+    }
+
+    /**
+     * Resposta da janela; na falta (ou se expirada/de versão antiga), serializa
+     * o resultado de {@code carregar} e guarda. Com max-entradas = 0 nada é guardado.
+     */
+    public Resposta buscar(String origem, String tipo, LocalDate inicio, LocalDate fim, Supplier<?> carregar) {
+        Chave chave = new Chave(inicio, fim, origem, tipo);
+
+        // lida antes da consulta: se houver importação no meio, a entrada já nasce velha
+        long versao = versaoDados.atual();
+        long agora = System.nanoTime();
+
+        trava.lock();
+        try {
+            Resposta resposta = respostas.get(chave);
+            if (resposta != null && resposta.versao == versao && agora - resposta.criadaEm < ttlNanos) {
+                acertos.increment();
+                return resposta;
+            }
+        } finally {
+            trava.unlock();
+        }
+        faltas.increment();
+
+        Resposta resposta = serializar(carregar.get(), versao, agora);
+
+        if (maxEntradas > 0) {
+            trava.lock();
+            try {
+                respostas.put(chave, resposta);
+            } finally {
+                trava.unlock();
+            }
+        }
+        return resposta;
+    }
+
+    /** true se as respostas também são guardadas em gzip. */
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    private Resposta serializar(Object corpo, long versao, long criadaEm) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(corpo);
+            return new Resposta(json, gzip ? comprimir(json) : null, versao, criadaEm);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] comprimir(byte[] json) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(Math.max(json.length / 4, 64));
+        try (GZIPOutputStream gz = new GZIPOutputStream(saida)) {
+            gz.write(json);
+        }
+        byte[] comprimido = saida.toByteArray();
+
+        if (log.isDebugEnabled()) {
+            log.debug("Resposta de período comprimida: {} -> {} bytes", json.length, comprimido.length);
+        }
+        return comprimido;
+    }
+
+    private record Chave(LocalDate inicio, LocalDate fim, String origem, String tipo) {}
+
+    /** Corpo pronto para escrita; {@code gzip} é null quando a compressão está desligada. */
+    public static final class Resposta {
+
+        private final byte[] json;
+        private final byte[] gzip;
+        private final long versao;
+        private final long criadaEm;
+
+        private Resposta(byte[] json, byte[] gzip, long versao, long criadaEm) {
+            this.json = json;
+            this.gzip = gzip;
+            this.versao = versao;
+            this.criadaEm = criadaEm;
+        }
+
+        public byte[] json() {
+            return json;
+        }
+
+        public byte[] gzip() {
+            return gzip;
+        }
+    }
+}
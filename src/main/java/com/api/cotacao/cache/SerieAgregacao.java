@@ -0,0 +1,203 @@
+package com.api.cotacao.cache;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.api.cotacao.DTO.CotacaoCafeAgregadoDTO;
+import com.api.cotacao.DTO.CotacaoCafePeriodoDTO;
+import com.api.cotacao.utils.PrecoFixo;
+
+/**
+ * Agregação (OHLC + média) e redução de pontos sobre uma janela
+ * [de, ate) da {@link CotacaoSerieCache.Serie}, numa única passada.
+ * A série deve ser de um único par (origem, tipo): com várias, datas
+ * repetidas de tipos diferentes cairiam no mesmo balde.
+ */
+public final class SerieAgregacao {
+
+    public enum Intervalo { DIARIO, SEMANAL, MENSAL, ANUAL }
+
+    public enum Metodo { LTTB, MINMAX }
+
+    /** Menor maxPontos aceito em {@link #reduzir}: primeiro e último ponto mais um balde. */
+    public static final int MIN_PONTOS = 3;
+
+    private SerieAgregacao() {}
+
+    public static List<CotacaoCafeAgregadoDTO> agregar(CotacaoSerieCache.Serie serie, int de, int ate, Intervalo intervalo) {
+        List<CotacaoCafeAgregadoDTO> lista = new ArrayList<>();
+        if (de >= ate) {
+            return lista;
+        }
+
+        int inicioBalde = 0;
+        int fimBalde = Integer.MIN_VALUE;
+        long abertura = 0, maxima = 0, minima = 0, fechamento = 0, soma = 0;
+        int pontos = 0;
+
+        for (int i = de; i < ate; i++) {
+            int dia = serie.dia(i);
+            long valor = serie.valorFixo(i);
+
+            if (dia >= fimBalde) {
+                if (pontos > 0) {
+                    lista.add(balde(inicioBalde, abertura, maxima, minima, fechamento, soma, pontos));
+                }
+                // datas só são criadas uma vez por balde
+                inicioBalde = inicioDoBalde(dia, intervalo);
+                fimBalde = fimDoBalde(inicioBalde, intervalo);
+                abertura = maxima = minima = valor;
+                soma = 0;
+                pontos = 0;
+            }
+
+            maxima = Math.max(maxima, valor);
+            minima = Math.min(minima, valor);
+            fechamento = valor;
+            soma += valor;
+            pontos++;
+        }
+
+        lista.add(balde(inicioBalde, abertura, maxima, minima, fechamento, soma, pontos));
+        return lista;
+    }
+
+    /**
+     * Reduz a janela a no máximo {@code maxPontos} pontos reais da série.
+     * LTTB preserva a forma da curva; MINMAX mantém mínimo e máximo de cada balde.
+     */
+    public static List<CotacaoCafePeriodoDTO> reduzir(CotacaoSerieCache.Serie serie, int de, int ate, int maxPontos, Metodo metodo) {
+        if (maxPontos < MIN_PONTOS) {
+            throw new IllegalArgumentException("maxPontos deve ser pelo menos " + MIN_PONTOS + ": " + maxPontos);
+        }
+
+        int total = ate - de;
+        if (total <= maxPontos) {
+            List<CotacaoCafePeriodoDTO> lista = new ArrayList<>(Math.max(total, 0));
+            for (int i = de; i < ate; i++) {
+                lista.add(ponto(serie, i));
+            }
+            return lista;
+        }
+
+        return metodo == Metodo.MINMAX
+                ? minMax(serie, de, ate, maxPontos)
+                : lttb(serie, de, ate, maxPontos);
+    }
+
+    // Largest-Triangle-Three-Buckets (Steinarsson, 2013)
+    private static List<CotacaoCafePeriodoDTO> lttb(CotacaoSerieCache.Serie serie, int de, int ate, int maxPontos) {
+        List<CotacaoCafePeriodoDTO> lista = new ArrayList<>(maxPontos);
+        double tamanhoBalde = (double) (ate - de - 2) / (maxPontos - 2);
+
+        int a = de;
+        lista.add(ponto(serie, a));
+
+        for (int b = 0; b < maxPontos - 2; b++) {
+            // média do próximo balde (o último ponto fecha a série)
+            int proxDe = de + 1 + (int) ((b + 1) * tamanhoBalde);
+            int proxAte = Math.min(de + 1 + (int) ((b + 2) * tamanhoBalde), ate);
+            if (proxDe >= proxAte) {
+                proxDe = ate - 1;
+                proxAte = ate;
+            }
+            double mediaX = 0;
+            double mediaY = 0;
+            for (int i = proxDe; i < proxAte; i++) {
+                mediaX += serie.dia(i);
+                mediaY += serie.valorFixo(i);
+            }
+            mediaX /= proxAte - proxDe;
+            mediaY /= proxAte - proxDe;
+
+            int baldeDe = de + 1 + (int) (b * tamanhoBalde);
+            int baldeAte = de + 1 + (int) ((b + 1) * tamanhoBalde);
+
+            double ax = serie.dia(a);
+            double ay = serie.valorFixo(a);
+            double maiorArea = -1;
+            int escolhido = baldeDe;
+
+            for (int i = baldeDe; i < baldeAte; i++) {
+                double area = Math.abs((ax - mediaX) * (serie.valorFixo(i) - ay)
+                        - (ax - serie.dia(i)) * (mediaY - ay));
+                if (area > maiorArea) {
+                    maiorArea = area;
+                    escolhido = i;
+                }
+            }
+
+            lista.add(ponto(serie, escolhido));
+            a = escolhido;
+        }
+
+        lista.add(ponto(serie, ate - 1));
+        return lista;
+    }
+
+    private static List<CotacaoCafePeriodoDTO> minMax(CotacaoSerieCache.Serie serie, int de, int ate, int maxPontos) {
+        int baldes = maxPontos / 2;
+        List<CotacaoCafePeriodoDTO> lista = new ArrayList<>(baldes * 2);
+        double tamanhoBalde = (double) (ate - de) / baldes;
+
+        for (int b = 0; b < baldes; b++) {
+            int baldeDe = de + (int) (b * tamanhoBalde);
+            int baldeAte = b == baldes - 1 ? ate : de + (int) ((b + 1) * tamanhoBalde);
+
+            int iMin = baldeDe;
+            int iMax = baldeDe;
+            for (int i = baldeDe + 1; i < baldeAte; i++) {
+                if (serie.valorFixo(i) < serie.valorFixo(iMin)) {
+                    iMin = i;
+                }
+                if (serie.valorFixo(i) > serie.valorFixo(iMax)) {
+                    iMax = i;
+                }
+            }
+
+            // mantém a ordem cronológica dentro do balde
+            lista.add(ponto(serie, Math.min(iMin, iMax)));
+            if (iMin != iMax) {
+                lista.add(ponto(serie, Math.max(iMin, iMax)));
+            }
+        }
+        return lista;
+    }
+
+    private static int inicioDoBalde(int dia, Intervalo intervalo) {
+        return switch (intervalo) {
+            case DIARIO -> dia;
+            // epoch-day 0 (1970-01-01) é quinta; semanas começam na segunda
+            case SEMANAL -> dia - Math.floorMod(dia + 3, 7);
+            case MENSAL -> (int) LocalDate.ofEpochDay(dia).withDayOfMonth(1).toEpochDay();
+            case ANUAL -> (int) LocalDate.ofEpochDay(dia).withDayOfYear(1).toEpochDay();
+        };
+    }
+
+    private static int fimDoBalde(int inicio, Intervalo intervalo) {
+        return switch (intervalo) {
+            case DIARIO -> inicio + 1;
+            case SEMANAL -> inicio + 7;
+            case MENSAL -> (int) LocalDate.ofEpochDay(inicio).plusMonths(1).toEpochDay();
+            case ANUAL -> (int) LocalDate.ofEpochDay(inicio).plusYears(1).toEpochDay();
+        };
+    }
+
+    private static CotacaoCafeAgregadoDTO balde(int inicio, long abertura, long maxima, long minima,
+                                                long fechamento, long soma, int pontos) {
+        return new CotacaoCafeAgregadoDTO(
+                LocalDate.ofEpochDay(inicio),
+                PrecoFixo.paraBigDecimal(abertura, 2),
+                PrecoFixo.paraBigDecimal(maxima, 2),
+                PrecoFixo.paraBigDecimal(minima, 2),
+                PrecoFixo.paraBigDecimal(fechamento, 2),
+                PrecoFixo.paraBigDecimal(Math.round((double) soma / pontos), 2),
+                pontos
+        );
+    }
+
+    private static CotacaoCafePeriodoDTO ponto(CotacaoSerieCache.Serie serie, int i) {
+        return CotacaoCafePeriodoDTO.of(LocalDate.ofEpochDay(serie.dia(i)), serie.valorFixo(i));
+    }
+}
@@ -0,0 +1,115 @@
+package com.api.cotacao.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import com.api.cotacao.utils.PrecoFixo;
+import com.api.cotacao.utils.Utils;
+
+/**
+ * Formatos compactos de exportação de uma janela [de, ate) da
+ * {@link CotacaoSerieCache.Serie}, escritos direto dos arrays da série
+ * (sem DTO por ponto). Os valores têm as mesmas 2 casas do valorCafe de /periodo.
+ */
+public final class SerieFormato {
+
+    private static final int CASAS = 2;
+
+    // "yyyy-MM-dd" + maior texto de PrecoFixo.escrever
+    private static final int TAMANHO_DATA = 10;
+    private static final int TAMANHO_VALOR = 21;
+
+    public enum Formato {
+        /** "data,valor" e uma linha por ponto. */
+        CSV("text/csv"),
+        /** {"datas":[...],"valores":[...]} */
+        COLUNAR("application/vnd.cotacao.colunar+json"),
+        /**
+         * Little-endian: int32 com a quantidade de pontos, depois, por ponto,
+         * int32 epoch-day e float64 valor.
+         */
+        BINARIO("application/vnd.cotacao.serie");
+
+        private final String mediaType;
+
+        Formato(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String mediaType() {
+            return mediaType;
+        }
+    }
+
+    private SerieFormato() {}
+
+    public static byte[] escrever(CotacaoSerieCache.Serie serie, int de, int ate, Formato formato) {
+        int pontos = Math.max(ate - de, 0);
+        return switch (formato) {
+            case CSV -> csv(serie, de, pontos);
+            case COLUNAR -> colunar(serie, de, pontos);
+            case BINARIO -> binario(serie, de, pontos);
+        };
+    }
+
+    private static byte[] csv(CotacaoSerieCache.Serie serie, int de, int pontos) {
+        byte[] cabecalho = {'d', 'a', 't', 'a', ',', 'v', 'a', 'l', 'o', 'r', '\n'};
+
+        byte[] saida = new byte[cabecalho.length + pontos * (TAMANHO_DATA + TAMANHO_VALOR + 2)];
+        System.arraycopy(cabecalho, 0, saida, 0, cabecalho.length);
+        int pos = cabecalho.length;
+
+        for (int i = de; i < de + pontos; i++) {
+            pos = Utils.escreverIsoDate(serie.dia(i), saida, pos);
+            saida[pos++] = ',';
+            pos = PrecoFixo.escrever(serie.valorFixo(i), CASAS, saida, pos);
+            saida[pos++] = '\n';
+        }
+        return Arrays.copyOf(saida, pos);
+    }
+
+    private static byte[] colunar(CotacaoSerieCache.Serie serie, int de, int pontos) {
+        byte[] saida = new byte[32 + pontos * (TAMANHO_DATA + TAMANHO_VALOR + 4)];
+
+        int pos = ascii("{\"datas\":[", saida, 0);
+        for (int i = de; i < de + pontos; i++) {
+            if (i > de) {
+                saida[pos++] = ',';
+            }
+            saida[pos++] = '"';
+            pos = Utils.escreverIsoDate(serie.dia(i), saida, pos);
+            saida[pos++] = '"';
+        }
+
+        pos = ascii("],\"valores\":[", saida, pos);
+        for (int i = de; i < de + pontos; i++) {
+            if (i > de) {
+                saida[pos++] = ',';
+            }
+            pos = PrecoFixo.escrever(serie.valorFixo(i), CASAS, saida, pos);
+        }
+
+        pos = ascii("]}", saida, pos);
+        return Arrays.copyOf(saida, pos);
+    }
+
+    private static byte[] binario(CotacaoSerieCache.Serie serie, int de, int pontos) {
+        ByteBuffer saida = ByteBuffer.allocate(Integer.BYTES + pontos * (Integer.BYTES + Double.BYTES))
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        saida.putInt(pontos);
+        for (int i = de; i < de + pontos; i++) {
+            saida.putInt(serie.dia(i));
+            saida.putDouble(PrecoFixo.paraDouble(serie.valorFixo(i), CASAS));
+        }
+        return saida.array();
+    }
+
+    private static int ascii(String texto, byte[] destino, int pos) {
+        for (int i = 0; i < texto.length(); i++) {
+            destino[pos++] = (byte) texto.charAt(i);
+        }
+        return pos;
+    }
+}
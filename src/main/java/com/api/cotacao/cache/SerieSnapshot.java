@@ -0,0 +1,330 @@
+package com.api.cotacao.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.api.cotacao.db.DAOController;
+import com.api.cotacao.entity.CotacaoCafeEntity;
+import com.api.cotacao.select.CotacaoSelect;
+import com.api.cotacao.select.ImpHistoricoSelect;
+import com.api.cotacao.utils.FileUtils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Snapshot em disco das séries do {@link CotacaoSerieCache}, para as
+ * primeiras leituras depois da subida não irem ao banco (a subida em si
+ * continua precisando dele). O arquivo é mapeado em
+ * memória (FileChannel.map) e cada {@link CotacaoSerieCache.Serie} lê direto
+ * das fatias mapeadas, sem cópia para o heap. É regravado (writeBytesAtomic)
+ * depois de cada importação e só vale enquanto nenhuma outra importação
+ * tiver sido concluída desde a gravação.
+ *
+ * <p>Formato, little-endian:
+ * <pre>
+ * int  magic "CSNP", int versão do formato
+ * long marca: quantidade de importações concluídas quando foi gravado
+ * int  quantidade de entradas, int reservado
+ * por entrada: origem e tipo (short tamanho em bytes UTF-8, -1 para nulo, e
+ *              os bytes), int pontos, long posição dos dados
+ * dados (alinhados em 8): int[pontos] epoch-days, alinhamento, long[pontos] valores em ponto fixo
+ * </pre>
+ * Há uma entrada para cada chave que o cache aceita: (origem, tipo) e os
+ * agregados com origem e/ou tipo nulos ("todos"). Chaves com as mesmas séries
+ * de origem compartilham os dados.
+ */
+@Component
+public class SerieSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(SerieSnapshot.class);
+
+    private static final int MAGIC = 'C' | 'S' << 8 | 'N' << 16 | 'P' << 24;
+    // 2: marca passou de id da última importação para contagem de concluídas
+    private static final int FORMATO = 2;
+    private static final int TAMANHO_CABECALHO = 24;
+
+    private final DAOController dao;
+    private final Path arquivo;
+
+    // null enquanto não houver snapshot válido mapeado
+    private volatile Map<CotacaoSerieCache.Chave, CotacaoSerieCache.Serie> mapeadas;
+
+    private final ExecutorService gravador;
+    private final AtomicBoolean gravacaoPendente = new AtomicBoolean();
+
+    public SerieSnapshot(DAOController dao, @Value("${app.periodo.snapshot.arquivo:}") String arquivo) {
+        this.dao = dao;
+        this.arquivo = arquivo == null || arquivo.isBlank() ? null : Path.of(arquivo);
+        this.gravador = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "serie-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        if (arquivo == null) {
+            return;
+        }
+        if (!FileUtils.exists(arquivo)) {
+            log.info("Snapshot de séries {} ainda não existe; será gravado a partir do banco.", arquivo);
+            agendarGravacao();
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        long marcaBanco = ImpHistoricoSelect.contarConcluidos(dao);
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            ByteBuffer dados = mapa.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (dados.getInt(0) != MAGIC || dados.getInt(4) != FORMATO) {
+                log.warn("Snapshot de séries {} em formato desconhecido; será regravado.", arquivo);
+                agendarGravacao();
+                return;
+            }
+
+            long marca = dados.getLong(8);
+            if (marca != marcaBanco) {
+                log.info("Snapshot de séries {} desatualizado ({} importações concluídas, banco com {}); será regravado.",
+                        arquivo, marca, marcaBanco);
+                agendarGravacao();
+                return;
+            }
+
+            mapeadas = ler(dados);
+            log.info("Snapshot de séries mapeado: {} chaves, {} bytes em {} ms",
+                    mapeadas.size(), canal.size(), (System.nanoTime() - inicio) / 1_000_000);
+
+        } catch (IOException | RuntimeException e) {
+            log.warn("Snapshot de séries {} ilegível; será regravado: {}", arquivo, e.toString());
+            mapeadas = null;
+            agendarGravacao();
+        }
+    }
+
+    /**
+     * Série mapeada da chave (vazia se o snapshot não tem a chave, já que ele
+     * cobre todas), ou null sem snapshot válido.
+     */
+    public CotacaoSerieCache.Serie buscar(String origem, String tipo) {
+        Map<CotacaoSerieCache.Chave, CotacaoSerieCache.Serie> atuais = mapeadas;
+        if (atuais == null) {
+            return null;
+        }
+        return atuais.getOrDefault(new CotacaoSerieCache.Chave(origem, tipo), CotacaoSerieCache.VAZIA);
+    }
+
+    /** Chaves com dados no snapshot, ou null sem snapshot válido. */
+    Set<CotacaoSerieCache.Chave> chaves() {
+        Map<CotacaoSerieCache.Chave, CotacaoSerieCache.Serie> atuais = mapeadas;
+        return atuais == null ? null : atuais.keySet();
+    }
+
+    /** Os dados mudaram: o snapshot mapeado deixa de ser usado. */
+    public void descartar() {
+        mapeadas = null;
+    }
+
+    /** Regrava o arquivo em segundo plano; pedidos seguidos viram uma gravação. */
+    public void agendarGravacao() {
+        if (arquivo == null || !gravacaoPendente.compareAndSet(false, true)) {
+            return;
+        }
+        gravador.execute(() -> {
+            gravacaoPendente.set(false);
+            gravar();
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        gravador.shutdown();
+    }
+
+    private void gravar() {
+        long inicio = System.currentTimeMillis();
+        try {
+            // a marca é lida antes das cotações: uma importação no meio deixa o
+            // snapshot com marca velha, e ele é descartado na próxima subida
+            long marca = ImpHistoricoSelect.contarConcluidos(dao);
+            byte[] conteudo = serializar(marca, CotacaoSelect.buscarTodasSeries(dao));
+            FileUtils.writeBytesAtomic(arquivo, conteudo);
+
+            log.info("Snapshot de séries gravado em {}: {} bytes em {} ms",
+                    arquivo, conteudo.length, System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            log.warn("Não foi possível gravar o snapshot de séries {}", arquivo, e);
+        }
+    }
+
+    static byte[] serializar(long marca, List<CotacaoCafeEntity> cotacoes) {
+        Map<CotacaoSerieCache.Chave, Pontos> pontos = new LinkedHashMap<>();
+        Map<CotacaoSerieCache.Chave, Set<CotacaoSerieCache.Chave>> membros = new HashMap<>();
+        Map<CotacaoSerieCache.Chave, List<Pontos>> destinos = new HashMap<>();
+
+        // a lista vem por data, então cada chave recebe seus pontos já ordenados
+        for (CotacaoCafeEntity cotacao : cotacoes) {
+            CotacaoSerieCache.Chave par = new CotacaoSerieCache.Chave(cotacao.getOrigemDado(), cotacao.getTipoCafe());
+
+            List<Pontos> alvo = destinos.get(par);
+            if (alvo == null) {
+                alvo = new ArrayList<>(4);
+                for (CotacaoSerieCache.Chave chave : par.comAgregados()) {
+                    alvo.add(pontos.computeIfAbsent(chave, c -> new Pontos()));
+                    membros.computeIfAbsent(chave, c -> new HashSet<>()).add(par);
+                }
+                destinos.put(par, alvo);
+            }
+
+            int dia = (int) cotacao.getDataReferencia().toEpochDay();
+            long valor = cotacao.getValorFixo();
+            for (Pontos p : alvo) {
+                p.adicionar(dia, valor);
+            }
+        }
+
+        int tamanhoIndice = 0;
+        for (CotacaoSerieCache.Chave chave : pontos.keySet()) {
+            tamanhoIndice += tamanhoTexto(chave.origem()) + tamanhoTexto(chave.tipo()) + Integer.BYTES + Long.BYTES;
+        }
+
+        // chaves com os mesmos pares de origem têm a mesma série: os dados vão uma vez só
+        Map<Set<CotacaoSerieCache.Chave>, Long> posicoes = new HashMap<>();
+        Map<CotacaoSerieCache.Chave, Long> posicaoDe = new LinkedHashMap<>();
+        long fim = alinhar(TAMANHO_CABECALHO + tamanhoIndice);
+
+        for (Map.Entry<CotacaoSerieCache.Chave, Pontos> entry : pontos.entrySet()) {
+            Set<CotacaoSerieCache.Chave> pares = membros.get(entry.getKey());
+            Long posicao = posicoes.get(pares);
+            if (posicao == null) {
+                posicao = fim;
+                posicoes.put(pares, posicao);
+                fim = alinhar(posicao + tamanhoDados(entry.getValue().tamanho));
+            }
+            posicaoDe.put(entry.getKey(), posicao);
+        }
+
+        if (fim > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Snapshot de séries passaria de 2 GB: " + fim + " bytes");
+        }
+
+        ByteBuffer saida = ByteBuffer.allocate((int) fim).order(ByteOrder.LITTLE_ENDIAN);
+        saida.putInt(MAGIC).putInt(FORMATO).putLong(marca).putInt(pontos.size()).putInt(0);
+
+        Set<Long> escritas = new HashSet<>();
+        for (Map.Entry<CotacaoSerieCache.Chave, Pontos> entry : pontos.entrySet()) {
+            CotacaoSerieCache.Chave chave = entry.getKey();
+            Pontos p = entry.getValue();
+            long posicao = posicaoDe.get(chave);
+
+            escreverTexto(saida, chave.origem());
+            escreverTexto(saida, chave.tipo());
+            saida.putInt(p.tamanho).putLong(posicao);
+
+            if (escritas.add(posicao)) {
+                int base = (int) posicao;
+                for (int i = 0; i < p.tamanho; i++) {
+                    saida.putInt(base + i * Integer.BYTES, p.dias[i]);
+                }
+                int baseValores = (int) alinhar(base + (long) p.tamanho * Integer.BYTES);
+                for (int i = 0; i < p.tamanho; i++) {
+                    saida.putLong(baseValores + i * Long.BYTES, p.valores[i]);
+                }
+            }
+        }
+        return saida.array();
+    }
+
+    private static Map<CotacaoSerieCache.Chave, CotacaoSerieCache.Serie> ler(ByteBuffer dados) {
+        int entradas = dados.getInt(16);
+        Map<CotacaoSerieCache.Chave, CotacaoSerieCache.Serie> lidas = new HashMap<>(entradas * 2);
+
+        ByteBuffer indice = dados.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(TAMANHO_CABECALHO);
+        for (int e = 0; e < entradas; e++) {
+            String origem = lerTexto(indice);
+            String tipo = lerTexto(indice);
+            int quantidade = indice.getInt();
+            int posicao = Math.toIntExact(indice.getLong());
+
+            int tamanhoDias = quantidade * Integer.BYTES;
+            int posicaoValores = (int) alinhar(posicao + (long) tamanhoDias);
+
+            lidas.put(new CotacaoSerieCache.Chave(origem, tipo), new CotacaoSerieCache.Serie(
+                    dados.slice(posicao, tamanhoDias).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer(),
+                    dados.slice(posicaoValores, quantidade * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer()));
+        }
+        return lidas;
+    }
+
+    private static long alinhar(long posicao) {
+        return (posicao + 7) & ~7L;
+    }
+
+    private static long tamanhoDados(int pontos) {
+        return alinhar((long) pontos * Integer.BYTES) + (long) pontos * Long.BYTES;
+    }
+
+    private static int tamanhoTexto(String texto) {
+        return Short.BYTES + (texto == null ? 0 : texto.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static void escreverTexto(ByteBuffer saida, String texto) {
+        if (texto == null) {
+            saida.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        saida.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String lerTexto(ByteBuffer entrada) {
+        short tamanho = entrada.getShort();
+        if (tamanho < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[tamanho];
+        entrada.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Pontos {
+        int[] dias = new int[64];
+        long[] valores = new long[64];
+        int tamanho;
+
+        void adicionar(int dia, long valor) {
+            if (tamanho == dias.length) {
+                dias = Arrays.copyOf(dias, tamanho * 2);
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            dias[tamanho] = dia;
+            valores[tamanho] = valor;
+            tamanho++;
+        }
+    }
+}
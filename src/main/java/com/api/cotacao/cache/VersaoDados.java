@@ -0,0 +1,82 @@
+package com.api.cotacao.cache;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.api.cotacao.db.DAOController;
+import com.api.cotacao.db.ReplicasDataSource;
+import com.api.cotacao.entity.ImpHistoricoEntity;
+import com.api.cotacao.select.ImpHistoricoSelect;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Versão das cotações para cache HTTP (ETag / Last-Modified): instante, em
+ * epoch millis, da última importação confirmada. Na subida vem do histórico
+ * de importações; depois avança a cada invalidação do {@link CotacaoSerieCache}.
+ * Com réplicas de leitura, cada versão é repassada ao {@link ReplicasDataSource},
+ * que segura as leituras no primário enquanto uma réplica pode não tê-la.
+ */
+@Component
+public class VersaoDados {
+
+    private static final Logger log = LoggerFactory.getLogger(VersaoDados.class);
+
+    private final DAOController dao;
+    private final ReplicasDataSource replicas;
+
+    private final AtomicLong versao = new AtomicLong();
+
+    public VersaoDados(DAOController dao, Optional<ReplicasDataSource> replicas) {
+        this.dao = dao;
+        this.replicas = replicas.orElse(null);
+    }
+
+    @PostConstruct
+    public void init() {
+        ImpHistoricoEntity ultimo = ImpHistoricoSelect.buscarUltimoConcluido(dao);
+
+        long inicial = System.currentTimeMillis();
+        if (ultimo != null) {
+            LocalDateTime quando = ultimo.getFinalizadoEm() != null ? ultimo.getFinalizadoEm() : ultimo.getData();
+            inicial = quando.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        versao.set(inicial);
+        publicar(inicial);
+        log.info("Versão inicial dos dados: {}", inicial);
+    }
+
+    public long atual() {
+        return versao.get();
+    }
+
+    /** ETag forte de uma versão (lida uma vez com {@link #atual()}, para casar com o Last-Modified). */
+    public static String etag(long versao) {
+        return etag(versao, null);
+    }
+
+    /** ETag de uma representação alternativa (outro formato) da mesma versão. */
+    public static String etag(long versao, String variante) {
+        String base = Long.toString(versao, 36);
+        return "\"" + (variante == null ? base : base + "-" + variante) + "\"";
+    }
+
+    /** Avança a versão para agora (sempre crescente, mesmo com duas alterações no mesmo milissegundo). */
+    void alterada() {
+        long agora = System.currentTimeMillis();
+        publicar(versao.accumulateAndGet(agora, (anterior, novo) -> Math.max(anterior + 1, novo)));
+    }
+
+    private void publicar(long versao) {
+        if (replicas != null) {
+            replicas.alteracaoConfirmada(versao);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.api.cotacao.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Configuration;
+
+import com.api.cotacao.db.DAOController;
+import com.api.cotacao.select.CotacaoSelect;
+
+import jakarta.annotation.PostConstruct;
+
+@Configuration
+public class ConsultasConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsultasConfig.class);
+
+    private final DAOController dao;
+
+    public ConsultasConfig(DAOController dao) {
+        this.dao = dao;
+    }
+
+    @PostConstruct
+    public void init() {
+        CotacaoSelect.registrarConsultas(dao);
+        log.info("Consultas pré-compiladas registradas.");
+    }
+}
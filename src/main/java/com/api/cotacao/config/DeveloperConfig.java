@@ -33,5 +33,15 @@ public class DeveloperConfig {
         }
         
         log.info("Modo de desenvolvimento "+ modo, dev);
+
+        boolean trace = env.getProperty("app.sql-trace.enabled", Boolean.class, false);
+        double sampleRate = env.getProperty("app.sql-trace.sample-rate", Double.class, 0.01);
+        int bufferSize = env.getProperty("app.sql-trace.buffer-size", Integer.class, 1024);
+
+        DevSqlLogger.configureTrace(trace, sampleRate, bufferSize);
+
+        if (trace) {
+            log.info("Trace de SQL ativado: amostragem={}, buffer={}", sampleRate, bufferSize);
+        }
     }
 }
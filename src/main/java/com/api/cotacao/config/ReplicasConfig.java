@@ -0,0 +1,73 @@
+package com.api.cotacao.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.api.cotacao.db.ReplicasDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Leituras em réplicas, ligado por {@code app.datasource.replicas.urls}.
+ * O DataSource da aplicação passa a ser um LazyConnectionDataSourceProxy: a
+ * conexão física só é obtida no primeiro comando, quando já se sabe se a
+ * transação é somente-leitura. Transações {@code readOnly = true} vão para
+ * as réplicas; todo o resto (escritas, Flyway, leituras fora de transação)
+ * continua no primário de spring.datasource.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replicas", name = "urls")
+public class ReplicasConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicasDataSource replicasDataSource(DataSourceProperties properties,
+                                                 HikariDataSource primarioDataSource,
+                                                 @Value("${app.datasource.replicas.urls}") List<String> urls,
+                                                 @Value("${app.datasource.replicas.pool-size:10}") int tamanhoPool,
+                                                 @Value("${app.datasource.replicas.health-check-ms:5000}") long intervaloVerificacao,
+                                                 @Value("${app.datasource.replicas.max-lag-segundos:30}") int maxAtraso) {
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setMaximumPoolSize(tamanhoPool);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+
+        return new ReplicasDataSource(primarioDataSource, replicas, intervaloVerificacao, maxAtraso);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primarioDataSource, ReplicasDataSource replicasDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primarioDataSource);
+        dataSource.setReadOnlyDataSource(replicasDataSource);
+        return dataSource;
+    }
+}
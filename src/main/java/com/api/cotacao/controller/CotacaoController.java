@@ -1,21 +1,47 @@
 package com.api.cotacao.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.api.cotacao.DTO.CotacaoCafePeriodoDTO;
+import com.api.cotacao.DTO.CotacaoCafeAgregadoDTO;
+import com.api.cotacao.DTO.CotacaoCafePaginaDTO;
+import com.api.cotacao.DTO.CotacaoCafeResumoDTO;
+import com.api.cotacao.DTO.ImportacaoStatusDTO;
+import com.api.cotacao.cache.RespostaPeriodoCache;
+import com.api.cotacao.cache.SerieAgregacao;
+import com.api.cotacao.cache.SerieFormato;
+import com.api.cotacao.cache.VersaoDados;
+import com.api.cotacao.entity.CotacaoCafeResumoEntity;
+import com.api.cotacao.entity.ImpHistoricoEntity;
+import com.api.cotacao.service.CotacaoResumoService;
 import com.api.cotacao.service.CotacaoService;
+import com.api.cotacao.service.ImportacaoDiretorioService;
+import com.api.cotacao.service.ImportacaoJobService;
 import com.api.cotacao.utils.Utils;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 @RequestMapping("/api/cotacao/")
@@ -23,10 +49,30 @@ public class CotacaoController {
 
     private static final Logger log = LoggerFactory.getLogger(CotacaoController.class);
 
+    private static final int LIMITE_MAXIMO = 10000;
+
     private final CotacaoService cotacaoService;
+    private final ImportacaoJobService importacaoJobService;
+    private final ImportacaoDiretorioService importacaoDiretorioService;
+    private final CotacaoResumoService resumoService;
+    private final VersaoDados versaoDados;
+    private final RespostaPeriodoCache respostaCache;
+    private final ObjectMapper objectMapper;
 
-    public CotacaoController(CotacaoService cotacaoService) {
+    public CotacaoController(CotacaoService cotacaoService,
+                             ImportacaoJobService importacaoJobService,
+                             ImportacaoDiretorioService importacaoDiretorioService,
+                             CotacaoResumoService resumoService,
+                             VersaoDados versaoDados,
+                             RespostaPeriodoCache respostaCache,
+                             ObjectMapper objectMapper) {
         this.cotacaoService = cotacaoService;
+        this.importacaoJobService = importacaoJobService;
+        this.importacaoDiretorioService = importacaoDiretorioService;
+        this.resumoService = resumoService;
+        this.versaoDados = versaoDados;
+        this.respostaCache = respostaCache;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/importar/json")
@@ -44,16 +90,100 @@ public class CotacaoController {
         }
     }
 
+    @PostMapping("/importar/diretorio")
+    public ResponseEntity<String> importarDiretorio(@RequestParam("path") String pathDir) {
+        try {
+            List<ImpHistoricoEntity> historicos = importacaoDiretorioService.importarDiretorio(pathDir);
+            return ResponseEntity
+                    .status(HttpStatus.CREATED)
+                    .body("Importação concluída com sucesso: " + historicos.size() + " arquivo(s) em " + pathDir);
+        } catch (IllegalArgumentException e) {
+            log.warn("Diretório inválido para importação: {}", pathDir);
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Erro ao importar diretório: {}", pathDir, e);
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao importar diretório.");
+        }
+    }
+
+    @PostMapping("/importar/json/async")
+    public ResponseEntity<ImportacaoStatusDTO> importarDeJsonAsync(@RequestParam("path") String pathJson) {
+        try {
+            ImportacaoStatusDTO status = importacaoJobService.submeter(pathJson);
+            return ResponseEntity
+                    .status(HttpStatus.ACCEPTED)
+                    .body(status);
+        } catch (IllegalStateException | NoSuchFileException e) {
+            log.warn("Arquivo JSON inválido para importação: {}", pathJson);
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            log.warn("Fila de importação cheia, arquivo recusado: {}", pathJson);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            log.error("Erro ao enfileirar importação do arquivo JSON: {}", pathJson, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /** Carga de histórico grande por COPY (ver ImportacaoBackfillService); acompanhada por /importar/{id}. */
+    @PostMapping("/importar/backfill")
+    public ResponseEntity<ImportacaoStatusDTO> importarBackfill(@RequestParam("path") String pathJson,
+                                                                @RequestParam(value = "origem", defaultValue = CotacaoService.ORIGEM_CEPEA) String origem) {
+        try {
+            ImportacaoStatusDTO status = importacaoJobService.submeterBackfill(pathJson, origem);
+            return ResponseEntity
+                    .status(HttpStatus.ACCEPTED)
+                    .body(status);
+        } catch (IllegalStateException | NoSuchFileException e) {
+            log.warn("Arquivo JSON inválido para backfill: {}", pathJson);
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            log.warn("Fila de importação cheia, backfill recusado: {}", pathJson);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            log.error("Erro ao enfileirar backfill do arquivo JSON: {}", pathJson, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/importar/{id}")
+    public ResponseEntity<ImportacaoStatusDTO> statusImportacao(@PathVariable("id") Long id) {
+        ImportacaoStatusDTO status = importacaoJobService.status(id);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(status);
+    }
+
     @GetMapping("/ping")
     public ResponseEntity<String> ping() {
         return ResponseEntity.ok("Importação de café API OK");
     }
     
+    /**
+     * Com {@code maxPontos} (3 ou mais), a série é reduzida no servidor
+     * ({@code metodo} = lttb, padrão, ou minmax); origem/tipo devem apontar
+     * uma série só. Sem redução, o JSON sai pronto do {@link RespostaPeriodoCache}.
+     */
     @GetMapping("/periodo")
-    public ResponseEntity<List<CotacaoCafePeriodoDTO>> listarPorPeriodo(
+    public ResponseEntity<?> listarPorPeriodo(
             @RequestParam("inicio") String inicio,
-            @RequestParam("fim") String fim
+            @RequestParam("fim") String fim,
+            @RequestParam(value = "origem", required = false) String origem,
+            @RequestParam(value = "tipo", required = false) String tipo,
+            @RequestParam(value = "maxPontos", required = false) Integer maxPontos,
+            @RequestParam(value = "metodo", defaultValue = "lttb") String metodo,
+            WebRequest request
     ) {
+        // corpo gzip e corpo sem compressão são representações diferentes: cada um com seu ETag
+        boolean gzip = maxPontos == null && respostaCache.isGzip()
+                && aceitaGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (naoModificado(request, gzip ? "gzip" : null)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         try {
             LocalDate dataInicio = Utils.parseAnoMes(inicio);   // 2024-01-01
             LocalDate dataFimBase = Utils.parseAnoMes(fim);     // 2024-12-01
@@ -66,13 +196,310 @@ public class CotacaoController {
 
             log.info("Buscando cotações de {} até {}", dataInicio, dataFim);
 
-            List<CotacaoCafePeriodoDTO> lista = cotacaoService.buscarPorPeriodo(dataInicio, dataFim);
-            return ResponseEntity.ok(lista);
+            if (maxPontos == null) {
+                RespostaPeriodoCache.Resposta resposta = respostaCache.buscar(origem, tipo, dataInicio, dataFim,
+                        () -> cotacaoService.buscarPorPeriodo(origem, tipo, dataInicio, dataFim));
+                return json(resposta, gzip);
+            }
+
+            if (maxPontos < SerieAgregacao.MIN_PONTOS) {
+                return ResponseEntity.badRequest().build();
+            }
+            SerieAgregacao.Metodo metodoReducao = SerieAgregacao.Metodo.valueOf(metodo.toUpperCase(Locale.ROOT));
+            return ok(cotacaoService.buscarPorPeriodo(origem, tipo, dataInicio, dataFim, maxPontos, metodoReducao));
 
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Erro ao buscar cotações por período: inicio={}, fim={}", inicio, fim);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /** /periodo em CSV (Accept: text/csv). */
+    @GetMapping(value = "/periodo", produces = "text/csv")
+    public ResponseEntity<byte[]> exportarCsv(
+            @RequestParam("inicio") String inicio,
+            @RequestParam("fim") String fim,
+            @RequestParam(value = "origem", required = false) String origem,
+            @RequestParam(value = "tipo", required = false) String tipo,
+            WebRequest request
+    ) {
+        return exportar(SerieFormato.Formato.CSV, inicio, fim, origem, tipo, request);
+    }
+
+    /** /periodo em colunas: {"datas":[...],"valores":[...]}. */
+    @GetMapping(value = "/periodo", produces = "application/vnd.cotacao.colunar+json")
+    public ResponseEntity<byte[]> exportarColunar(
+            @RequestParam("inicio") String inicio,
+            @RequestParam("fim") String fim,
+            @RequestParam(value = "origem", required = false) String origem,
+            @RequestParam(value = "tipo", required = false) String tipo,
+            WebRequest request
+    ) {
+        return exportar(SerieFormato.Formato.COLUNAR, inicio, fim, origem, tipo, request);
+    }
+
+    /** /periodo em binário little-endian (ver {@link SerieFormato.Formato#BINARIO}). */
+    @GetMapping(value = "/periodo", produces = "application/vnd.cotacao.serie")
+    public ResponseEntity<byte[]> exportarBinario(
+            @RequestParam("inicio") String inicio,
+            @RequestParam("fim") String fim,
+            @RequestParam(value = "origem", required = false) String origem,
+            @RequestParam(value = "tipo", required = false) String tipo,
+            WebRequest request
+    ) {
+        return exportar(SerieFormato.Formato.BINARIO, inicio, fim, origem, tipo, request);
+    }
+
+    /** OHLC + média por {@code agregacao}: diario, semanal, mensal ou anual; de uma série (origem, tipo) só. */
+    @GetMapping("/periodo/agregado")
+    public ResponseEntity<List<CotacaoCafeAgregadoDTO>> listarAgregadoPorPeriodo(
+            @RequestParam("inicio") String inicio,
+            @RequestParam("fim") String fim,
+            @RequestParam(value = "origem", required = false) String origem,
+            @RequestParam(value = "tipo", required = false) String tipo,
+            @RequestParam(value = "agregacao", defaultValue = "mensal") String agregacao,
+            WebRequest request
+    ) {
+        if (naoModificado(request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        try {
+            LocalDate dataInicio = Utils.parseAnoMes(inicio);
+            LocalDate dataFim = fimDoMes(Utils.parseAnoMes(fim));
+            SerieAgregacao.Intervalo intervalo = SerieAgregacao.Intervalo.valueOf(agregacao.toUpperCase(Locale.ROOT));
+
+            return ok(cotacaoService.buscarAgregadoPorPeriodo(origem, tipo, dataInicio, dataFim, intervalo));
+
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao agregar cotações: inicio={}, fim={}, agregacao={}", inicio, fim, agregacao, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /** Resumos pré-calculados na importação; {@code intervalo} = mensal ou anual. */
+    @GetMapping("/resumo/{intervalo}")
+    public ResponseEntity<List<CotacaoCafeResumoDTO>> listarResumo(
+            @PathVariable("intervalo") String intervalo,
+            @RequestParam("inicio") String inicio,
+            @RequestParam("fim") String fim,
+            @RequestParam(value = "origem", required = false) String origem,
+            @RequestParam(value = "tipo", required = false) String tipo,
+            WebRequest request
+    ) {
+        if (naoModificado(request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        try {
+            String intervaloResumo = switch (intervalo.toLowerCase(Locale.ROOT)) {
+                case "mensal" -> CotacaoCafeResumoEntity.INTERVALO_MENSAL;
+                case "anual" -> CotacaoCafeResumoEntity.INTERVALO_ANUAL;
+                default -> null;
+            };
+            if (intervaloResumo == null) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            LocalDate dataInicio = Utils.parseAnoMes(inicio);
+            LocalDate dataFim = fimDoMes(Utils.parseAnoMes(fim));
+
+            return ok(resumoService.buscar(intervaloResumo, origem, tipo, dataInicio, dataFim));
+
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao buscar resumo {}: inicio={}, fim={}", intervalo, inicio, fim, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /** Keyset: {@code after} é o cursor {@code proximo} da página anterior (yyyy-MM-dd). */
+    @GetMapping("/periodo/pagina")
+    public ResponseEntity<CotacaoCafePaginaDTO> listarPaginaPorPeriodo(
+            @RequestParam("inicio") String inicio,
+            @RequestParam("fim") String fim,
+            @RequestParam(value = "origem", required = false) String origem,
+            @RequestParam(value = "tipo", required = false) String tipo,
+            @RequestParam(value = "limit", defaultValue = "1000") int limite,
+            @RequestParam(value = "after", required = false) String after,
+            WebRequest request
+    ) {
+        if (naoModificado(request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        try {
+            if (limite <= 0) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            LocalDate dataInicio = Utils.parseAnoMes(inicio);
+            LocalDate dataFim = fimDoMes(Utils.parseAnoMes(fim));
+            LocalDate depoisDe = after == null || after.isBlank() ? null : Utils.parseIsoDate(after);
+
+            CotacaoCafePaginaDTO pagina = cotacaoService.buscarPaginaPorPeriodo(
+                    origem, tipo, dataInicio, dataFim, depoisDe, Math.min(limite, LIMITE_MAXIMO));
+            return ok(pagina);
+
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao buscar página de cotações: inicio={}, fim={}, after={}", inicio, fim, after, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Mesmo resultado de /periodo, escrito no corpo à medida que é lido do
+     * banco: a memória por requisição não depende do tamanho do período.
+     */
+    @GetMapping("/periodo/stream")
+    public ResponseEntity<StreamingResponseBody> streamPorPeriodo(
+            @RequestParam("inicio") String inicio,
+            @RequestParam("fim") String fim,
+            @RequestParam(value = "origem", required = false) String origem,
+            @RequestParam(value = "tipo", required = false) String tipo,
+            WebRequest request
+    ) {
+        if (naoModificado(request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        LocalDate dataInicio;
+        LocalDate dataFim;
+        try {
+            dataInicio = Utils.parseAnoMes(inicio);
+            dataFim = fimDoMes(Utils.parseAnoMes(fim));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody corpo = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                cotacaoService.percorrerPorPeriodo(origem, tipo, dataInicio, dataFim, cotacao -> {
+                    try {
+                        json.writeObject(cotacao);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            } catch (UncheckedIOException e) {
+                log.error("Erro ao transmitir cotações: inicio={}, fim={}", inicio, fim, e);
+                throw e.getCause();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(corpo);
+    }
+
+    /**
+     * Confere If-None-Match / If-Modified-Since contra a versão dos dados
+     * (muda a cada importação). Preenche ETag e Last-Modified na resposta.
+     */
+    private boolean naoModificado(WebRequest request) {
+        return naoModificado(request, null);
+    }
+
+    private boolean naoModificado(WebRequest request, String variante) {
+        long versao = versaoDados.atual();
+        return request.checkNotModified(VersaoDados.etag(versao, variante), versao);
+    }
+
+    /** no-cache: o cliente pode guardar, mas revalida com o ETag a cada uso. */
+    private static <T> ResponseEntity<T> ok(T corpo) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(corpo);
+    }
+
+    private ResponseEntity<byte[]> exportar(SerieFormato.Formato formato, String inicio, String fim,
+                                            String origem, String tipo, WebRequest request) {
+        if (naoModificado(request, formato.name().toLowerCase(Locale.ROOT))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        try {
+            LocalDate dataInicio = Utils.parseAnoMes(inicio);
+            LocalDate dataFim = fimDoMes(Utils.parseAnoMes(fim));
+
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .contentType(MediaType.parseMediaType(formato.mediaType()))
+                    .body(cotacaoService.exportarPorPeriodo(origem, tipo, dataInicio, dataFim, formato));
+
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao exportar cotações em {}: inicio={}, fim={}", formato, inicio, fim, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /** Escreve os bytes prontos; a versão gzip só vai para quem a aceita. */
+    private static ResponseEntity<byte[]> json(RespostaPeriodoCache.Resposta resposta, boolean gzip) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        if (gzip && resposta.gzip() != null) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(resposta.gzip());
+        }
+        return builder.body(resposta.json());
+    }
+
+    /**
+     * true se o Accept-Encoding aceita gzip com q > 0, pelo nome ou por "*"
+     * (ex.: "gzip;q=0" recusa, "br, *;q=0.1" aceita).
+     */
+    static boolean aceitaGzip(String aceita) {
+        if (aceita == null) {
+            return false;
+        }
+
+        double qGzip = -1;
+        double qQualquer = -1;
+
+        for (String item : aceita.split(",")) {
+            String[] partes = item.split(";");
+            String codificacao = partes[0].trim().toLowerCase(Locale.ROOT);
+
+            double q = 1;
+            for (int i = 1; i < partes.length; i++) {
+                String parametro = partes[i].trim();
+                if (parametro.length() > 2 && (parametro.charAt(0) == 'q' || parametro.charAt(0) == 'Q')
+                        && parametro.charAt(1) == '=') {
+                    try {
+                        q = Double.parseDouble(parametro.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+
+            if (codificacao.equals("gzip") || codificacao.equals("x-gzip")) {
+                qGzip = Math.max(qGzip, q);
+            } else if (codificacao.equals("*")) {
+                qQualquer = Math.max(qQualquer, q);
+            }
+        }
+
+        return qGzip >= 0 ? qGzip > 0 : qQualquer > 0;
+    }
+
+    private static LocalDate fimDoMes(LocalDate data) {
+        return data.withDayOfMonth(data.lengthOfMonth());
+    }
+
 }
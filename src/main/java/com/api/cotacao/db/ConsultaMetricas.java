@@ -0,0 +1,31 @@
+package com.api.cotacao.db;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Timer "cotacao.consulta" das execuções de {@link QueryBuilder} e
+ * {@link QueryTemplate}, por operação (list/one), entidade e forma da
+ * consulta (campos do where/order by, ou o nome do template). Os valores
+ * dos parâmetros nunca entram nas tags.
+ */
+final class ConsultaMetricas {
+
+    static final String NOME = "cotacao.consulta";
+
+    private ConsultaMetricas() {}
+
+    static Timer timer(MeterRegistry registry, String operacao, String entidade, String forma) {
+        return Timer.builder(NOME)
+                .description("Execução de consultas do DAOController")
+                .tag("operacao", operacao)
+                .tag("entidade", entidade == null ? "desconhecida" : entidade)
+                .tag("forma", forma == null || forma.isEmpty() ? "todos" : forma)
+                .register(registry);
+    }
+
+    /** Início da medição; null quando não há registry (QueryBuilder criado fora do DAOController). */
+    static Timer.Sample iniciar(MeterRegistry registry) {
+        return registry == null ? null : Timer.start(registry);
+    }
+}
@@ -1,10 +1,25 @@
 package com.api.cotacao.db;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.api.cotacao.dev.DevSqlLogger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
 
 @Component
 public class DAOController {
@@ -12,6 +27,14 @@ public class DAOController {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, QueryTemplate> templates = new ConcurrentHashMap<>();
+
     
     @Transactional
     public <T> T insert(T entity) {
@@ -24,11 +47,151 @@ public class DAOController {
         return entityManager.merge(entity);
     }
 
+    /** Tira a entidade do contexto de persistência: alterações nela deixam de ir ao banco no flush. */
+    public void detach(Object entity) {
+        if (entity != null) {
+            entityManager.detach(entity);
+        }
+    }
+
+    /**
+     * Grava a lista inteira numa única transação, descarregando (flush) a cada
+     * {@code tamanhoLote} entidades para que o Hibernate envie os comandos em
+     * batches JDBC (ver hibernate.jdbc.batch_size).
+     * Entidades já gerenciadas só precisam do flush (dirty checking).
+     * Ao final o contexto de persistência é limpo, para que importações grandes
+     * feitas em blocos não acumulem entidades gerenciadas.
+     */
+    @Transactional
+    public <T> void salvarEmLote(List<T> entidades, int tamanhoLote) {
+        if (tamanhoLote <= 0) {
+            throw new IllegalArgumentException("tamanhoLote deve ser maior que zero");
+        }
+
+        int pendentes = 0;
+
+        for (T entidade : entidades) {
+            if (!entityManager.contains(entidade)) {
+                if (isNova(entidade)) {
+                    entityManager.persist(entidade);
+                } else {
+                    entityManager.merge(entidade);
+                }
+            }
+
+            if (++pendentes == tamanhoLote) {
+                entityManager.flush();
+                pendentes = 0;
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /** Liga os valores de um item nos parâmetros do comando de {@link #executarEmLote}. */
+    @FunctionalInterface
+    public interface Parametros<T> {
+        void ligar(PreparedStatement ps, T item) throws SQLException;
+    }
+
+    /**
+     * Executa um comando SQL nativo (ex.: INSERT ... ON CONFLICT) uma vez por
+     * item, em batches JDBC de {@code tamanhoLote}, na conexão da transação
+     * corrente. Como o comando passa por fora do contexto de persistência, ele
+     * é descarregado antes e limpo depois. Retorna quantos itens foram enviados.
+     */
+    @Transactional
+    public <T> int executarEmLote(String sql, List<T> itens, int tamanhoLote, Parametros<T> parametros) {
+        if (tamanhoLote <= 0) {
+            throw new IllegalArgumentException("tamanhoLote deve ser maior que zero");
+        }
+        if (itens.isEmpty()) {
+            return 0;
+        }
+
+        entityManager.flush();
+
+        DevSqlLogger.logSql(sql, List.of());
+
+        entityManager.unwrap(Session.class).doWork(conexao -> {
+            try (PreparedStatement ps = conexao.prepareStatement(sql)) {
+                int pendentes = 0;
+
+                for (T item : itens) {
+                    parametros.ligar(ps, item);
+                    ps.addBatch();
+
+                    if (++pendentes == tamanhoLote) {
+                        ps.executeBatch();
+                        pendentes = 0;
+                    }
+                }
+
+                if (pendentes > 0) {
+                    ps.executeBatch();
+                }
+            }
+        });
+
+        entityManager.clear();
+        return itens.size();
+    }
+
+    /**
+     * Executa {@code trabalho} direto na conexão JDBC da transação corrente,
+     * para o que não cabe em JPA (ex.: COPY do driver do PostgreSQL). Como em
+     * {@link #executarEmLote}, o contexto é descarregado antes e limpo depois.
+     */
+    @Transactional
+    public <R> R naConexao(ReturningWork<R> trabalho) {
+        entityManager.flush();
+        R resultado = entityManager.unwrap(Session.class).doReturningWork(trabalho);
+        entityManager.clear();
+        return resultado;
+    }
+
     public QueryBuilder select() {
-        return new QueryBuilder(entityManager).select();
+        return new QueryBuilder(entityManager, meterRegistry).select();
     }
 
     public QueryBuilder select(String... campos) {
-        return new QueryBuilder(entityManager).select(campos);
+        return new QueryBuilder(entityManager, meterRegistry).select(campos);
+    }
+
+    public QueryBuilder selectDistinct(String... campos) {
+        return new QueryBuilder(entityManager, meterRegistry).selectDistinct(campos);
+    }
+
+    /**
+     * Compila a forma de consulta e a registra como named query, para que as
+     * execuções seguintes só liguem parâmetros. Chamado na subida da aplicação.
+     */
+    public QueryTemplate registrar(String nome, QueryBuilder forma) {
+        QueryTemplate template = forma.compile(nome);
+
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            entityManagerFactory.addNamedQuery(nome, template.criarDefinicao(em));
+        } finally {
+            em.close();
+        }
+
+        templates.put(nome, template);
+        return template;
+    }
+
+    public QueryTemplate consulta(String nome) {
+        QueryTemplate template = templates.get(nome);
+        if (template == null) {
+            throw new IllegalStateException("Consulta '" + nome + "' não foi registrada.");
+        }
+        return template;
+    }
+
+    private boolean isNova(Object entidade) {
+        return entityManager.getEntityManagerFactory()
+                .getPersistenceUnitUtil()
+                .getIdentifier(entidade) == null;
     }
 }
@@ -0,0 +1,132 @@
+package com.api.cotacao.db;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Mapeia linhas de projeção (Object[]) para a entidade.
+ * Construtor e campos são resolvidos uma única vez por (entityClass, campos
+ * selecionados) em MethodHandles; por linha só restam as invocações.
+ */
+final class ProjecaoMapper {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjecaoMapper.class);
+
+    private static final Map<Chave, ProjecaoMapper> CACHE = new ConcurrentHashMap<>();
+
+    private static final MethodType CONSTRUTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<?> entityClass;
+    private final MethodHandle construtor;
+    // um setter por coluna selecionada; null quando o campo não existe na entidade
+    private final MethodHandle[] setters;
+
+    private ProjecaoMapper(Class<?> entityClass, List<String> selectedRawFields) {
+        this.entityClass = entityClass;
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(entityClass, MethodHandles.lookup());
+
+            this.construtor = lookup.findConstructor(entityClass, MethodType.methodType(void.class))
+                    .asType(CONSTRUTOR_TYPE);
+
+            this.setters = new MethodHandle[selectedRawFields.size()];
+
+            for (int i = 0; i < selectedRawFields.size(); i++) {
+                String fieldName = nomeDoCampo(selectedRawFields.get(i));
+                if (fieldName == null) {
+                    continue;
+                }
+
+                Field field = findFieldInHierarchy(entityClass, fieldName);
+                if (field == null) {
+                    log.warn("Campo '{}' não encontrado na entidade {} ao mapear projeção.",
+                            fieldName, entityClass.getSimpleName());
+                    continue;
+                }
+
+                setters[i] = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup())
+                        .unreflectSetter(field)
+                        .asType(SETTER_TYPE);
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Não foi possível preparar o mapeamento de projeção para "
+                    + entityClass.getSimpleName(), e);
+        }
+    }
+
+    static ProjecaoMapper of(Class<?> entityClass, List<String> selectedRawFields) {
+        Chave chave = new Chave(entityClass, List.copyOf(selectedRawFields));
+        return CACHE.computeIfAbsent(chave, c -> new ProjecaoMapper(c.entityClass(), c.campos()));
+    }
+
+    List<Object> mapAll(List<?> rawRows) {
+        if (rawRows == null || rawRows.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Object> result = new ArrayList<>(rawRows.size());
+        for (Object rowObj : rawRows) {
+            result.add(map(rowObj));
+        }
+        return result;
+    }
+
+    Object map(Object rowObj) {
+        try {
+            Object entity = construtor.invokeExact();
+
+            if (rowObj instanceof Object[] row) {
+                int total = Math.min(setters.length, row.length);
+                for (int i = 0; i < total; i++) {
+                    MethodHandle setter = setters[i];
+                    if (setter != null) {
+                        setter.invokeExact(entity, row[i]);
+                    }
+                }
+            } else if (setters.length > 0 && setters[0] != null) {
+                setters[0].invokeExact(entity, rowObj);
+            }
+
+            return entity;
+        } catch (Throwable e) {
+            throw new RuntimeException("Erro ao instanciar entidade " + entityClass.getSimpleName()
+                    + " a partir da projeção", e);
+        }
+    }
+
+    private static String nomeDoCampo(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+
+        String trimmed = raw.trim();
+        int dotIndex = trimmed.lastIndexOf('.');
+        return dotIndex >= 0 ? trimmed.substring(dotIndex + 1) : trimmed;
+    }
+
+    private static Field findFieldInHierarchy(Class<?> clazz, String fieldName) {
+        Class<?> current = clazz;
+        while (current != null && current != Object.class) {
+            for (Field f : current.getDeclaredFields()) {
+                if (f.getName().equals(fieldName)) {
+                    return f;
+                }
+            }
+            current = current.getSuperclass();
+        }
+        return null;
+    }
+
+    private record Chave(Class<?> entityClass, List<String> campos) {}
+}
@@ -4,13 +4,18 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.api.cotacao.dev.DevSqlLogger;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 
@@ -19,7 +24,19 @@ public class QueryBuilder {
 
     private static final Logger log = LoggerFactory.getLogger(QueryBuilder.class);
 
+    /**
+     * Marcador de parâmetro para formas de consulta compiladas com {@link #compile(String)}:
+     * ocupa a posição do valor no where() e é preenchido só na execução do template.
+     */
+    public static final Object PARAM = new Object() {
+        @Override
+        public String toString() {
+            return "PARAM";
+        }
+    };
+
     private final EntityManager entityManager;
+    private final MeterRegistry meterRegistry;
     private final StringBuilder jpql = new StringBuilder();
     private final List<Object> params = new ArrayList<>();
 
@@ -31,9 +48,17 @@ public class QueryBuilder {
     private boolean projection = false;
     private final List<String> selectedRawFields = new ArrayList<>();
     private Integer maxResults;
+    private Class<?> resultClass;
+    // campos/condições do where e order by, sem valores: tag "forma" das métricas
+    private final StringBuilder forma = new StringBuilder();
 
     public QueryBuilder(EntityManager entityManager) {
+        this(entityManager, null);
+    }
+
+    public QueryBuilder(EntityManager entityManager, MeterRegistry meterRegistry) {
         this.entityManager = entityManager;
+        this.meterRegistry = meterRegistry;
     }
 
     private void reset() {
@@ -46,6 +71,8 @@ public class QueryBuilder {
         projection = false;
         selectedRawFields.clear();
         maxResults = null;
+        resultClass = null;
+        forma.setLength(0);
     }
 
     public QueryBuilder select() {
@@ -85,6 +112,45 @@ public class QueryBuilder {
         return this;
     }
 
+    /** Como {@link #select(String...)}, sem linhas repetidas (SELECT DISTINCT). */
+    public QueryBuilder selectDistinct(String... campos) {
+        select(campos);
+        jpql.insert("SELECT ".length(), "DISTINCT ");
+        anotarForma("distinct");
+        return this;
+    }
+
+    /**
+     * Projeção direta para DTO/record via expressão de construtor JPQL
+     * (SELECT NEW ...). Os campos precisam bater, em ordem e tipo, com um
+     * construtor de {@code resultClass}; nenhuma entidade é instanciada.
+     */
+    public QueryBuilder selectNew(Class<?> resultClass, String... campos) {
+        reset();
+
+        if (resultClass == null) {
+            throw new IllegalArgumentException("resultClass não pode ser nulo");
+        }
+        if (campos == null || campos.length == 0) {
+            throw new IllegalArgumentException("selectNew exige pelo menos 1 campo");
+        }
+
+        this.resultClass = resultClass;
+        jpql.append("SELECT NEW ").append(resultClass.getName()).append("(");
+
+        for (int i = 0; i < campos.length; i++) {
+            if (i > 0) {
+                jpql.append(", ");
+            }
+            jpql.append(qualifyField(campos[i]));
+
+            selectedRawFields.add(campos[i].trim());
+        }
+
+        jpql.append(") ");
+        return this;
+    }
+
     public QueryBuilder from(Class<?> entityClass) {
         if (entityClass == null) {
             throw new IllegalArgumentException("entityClass não pode ser nulo");
@@ -99,7 +165,7 @@ public class QueryBuilder {
             .append(rootAlias)
             .append(" ");
 
-        if (projection && !selectedRawFields.isEmpty()) {
+        if (!selectedRawFields.isEmpty()) {
             validateSelectedFieldsAgainstEntity();
         }
 
@@ -194,6 +260,7 @@ public class QueryBuilder {
         }
 
         String f = qualifyField(campo);
+        anotarForma(campo.trim() + " " + condicao.name());
 
         switch (condicao) {
             case BETWEEN -> {
@@ -240,6 +307,7 @@ public class QueryBuilder {
 
     public QueryBuilder orderBy(String campo, boolean asc) {
         String f = qualifyField(campo);
+        anotarForma("order " + campo.trim() + (asc ? "" : " desc"));
         jpql.append("ORDER BY ")
             .append(f)
             .append(asc ? " ASC " : " DESC ");
@@ -251,47 +319,84 @@ public class QueryBuilder {
             throw new IllegalArgumentException("limit deve ser maior que zero");
         }
         maxResults = max;
+        anotarForma("limit");
         return this;
     }
 
     @Transactional(readOnly = true)
     @SuppressWarnings("unchecked")
     public <T> List<T> list() {
-        Query query;
+        Timer.Sample amostra = ConsultaMetricas.iniciar(meterRegistry);
+        try {
+            Query query = criarQuery();
 
-        if (projection && entityClass != null) {
-            query = entityManager.createQuery(jpql.toString());
-        } else if (entityClass != null && !projection) {
-            query = entityManager.createQuery(jpql.toString(), entityClass);
-        } else {
-            query = entityManager.createQuery(jpql.toString());
+            if (projection && entityClass != null) {
+                List<?> raw = query.getResultList();
+                return (List<T>) mapToEntities(entityClass, selectedRawFields, raw);
+            }
+
+            return (List<T>) query.getResultList();
+        } finally {
+            medir(amostra, "list");
         }
+    }
 
-        if (maxResults != null) {
-            query.setMaxResults(maxResults);
+
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public <T> T one() {
+        Timer.Sample amostra = ConsultaMetricas.iniciar(meterRegistry);
+        try {
+            Query query = criarQuery();
+
+            if (projection && entityClass != null) {
+                Object row = query.getSingleResult();
+                return (T) mapSingleRowToEntity(entityClass, selectedRawFields, row);
+            }
+
+            return (T) query.getSingleResult();
+        } finally {
+            medir(amostra, "one");
         }
+    }
 
-        for (int i = 0; i < params.size(); i++) {
-            query.setParameter(i + 1, params.get(i));
+    private void medir(Timer.Sample amostra, String operacao) {
+        if (amostra != null) {
+            amostra.stop(ConsultaMetricas.timer(meterRegistry, operacao, entityName, forma.toString()));
+        }
+    }
+
+    private void anotarForma(String parte) {
+        if (!forma.isEmpty()) {
+            forma.append(", ");
         }
+        forma.append(parte);
+    }
 
-        DevSqlLogger.logSql(jpql.toString(), params);
+    /**
+     * Como {@link #list()}, mas lendo o resultado sob demanda, {@code fetchSize}
+     * linhas por ida ao banco. O chamador fecha o Stream e precisa estar numa
+     * transação: no PostgreSQL o cursor só existe com autocommit desligado.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Stream<T> stream(int fetchSize) {
+        Query query = criarQuery();
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
 
         if (projection && entityClass != null) {
-            List<?> raw = query.getResultList();
-            return (List<T>) mapToEntities(raw);
+            ProjecaoMapper mapper = mapperFor(entityClass, selectedRawFields);
+            return (Stream<T>) query.getResultStream().map(mapper::map);
         }
 
-        return (List<T>) query.getResultList();
+        return (Stream<T>) query.getResultStream();
     }
 
-
-    @Transactional(readOnly = true)
-    @SuppressWarnings("unchecked")
-    public <T> T one() {
+    private Query criarQuery() {
         Query query;
 
-        if (projection && entityClass != null) {
+        if (resultClass != null) {
+            query = entityManager.createQuery(jpql.toString(), resultClass);
+        } else if (projection && entityClass != null) {
             query = entityManager.createQuery(jpql.toString());
         } else if (entityClass != null && !projection) {
             query = entityManager.createQuery(jpql.toString(), entityClass);
@@ -305,16 +410,11 @@ public class QueryBuilder {
 
         for (int i = 0; i < params.size(); i++) {
             query.setParameter(i + 1, params.get(i));
-        }	
+        }
 
         DevSqlLogger.logSql(jpql.toString(), params);
 
-        if (projection && entityClass != null) {
-            Object row = query.getSingleResult();
-            return (T) mapSingleRowToEntity(row);
-        }
-
-        return (T) query.getSingleResult();
+        return query;
     }
 
 
@@ -419,83 +519,54 @@ public class QueryBuilder {
         return false;
     }
 
-    private List<?> mapToEntities(List<?> rawRows) {
-        List<Object> result = new ArrayList<>();
+    static List<?> mapToEntities(Class<?> entityClass, List<String> selectedRawFields, List<?> rawRows) {
         if (rawRows == null || rawRows.isEmpty()) {
-            return result;
-        }
-
-        for (Object rowObj : rawRows) {
-            Object entity = mapSingleRowToEntity(rowObj);
-            result.add(entity);
+            return new ArrayList<>();
         }
+        return mapperFor(entityClass, selectedRawFields).mapAll(rawRows);
+    }
 
-        return result;
+    static Object mapSingleRowToEntity(Class<?> entityClass, List<String> selectedRawFields, Object rowObj) {
+        return mapperFor(entityClass, selectedRawFields).map(rowObj);
     }
 
-    private Object mapSingleRowToEntity(Object rowObj) {
+    private static ProjecaoMapper mapperFor(Class<?> entityClass, List<String> selectedRawFields) {
         if (entityClass == null) {
             throw new IllegalStateException("entityClass é nula; não é possível mapear projeção para entidade.");
         }
-
-        Object[] row;
-        if (rowObj instanceof Object[]) {
-            row = (Object[]) rowObj;
-        } else {
-            row = new Object[]{rowObj};
-        }
-
-        try {
-            Object entity = entityClass.getDeclaredConstructor().newInstance();
-
-            for (int i = 0; i < selectedRawFields.size() && i < row.length; i++) {
-                String raw = selectedRawFields.get(i);
-                if (raw == null || raw.isBlank()) {
-                    continue;
-                }
-
-                String trimmed = raw.trim();
-                String fieldName = trimmed;
-
-                int dotIndex = trimmed.lastIndexOf('.');
-                if (dotIndex >= 0) {
-                    fieldName = trimmed.substring(dotIndex + 1);
-                }
-
-                Field field = findFieldInHierarchy(entityClass, fieldName);
-                if (field == null) {
-                    log.warn("Campo '{}' não encontrado na entidade {} ao mapear projeção.",
-                            fieldName, entityClass.getSimpleName());
-                    continue;
-                }
-
-                field.setAccessible(true);
-                field.set(entity, row[i]);
-            }
-
-            return entity;
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao instanciar entidade " + entityClass.getSimpleName()
-                    + " a partir da projeção", e);
-        }
+        return ProjecaoMapper.of(entityClass, selectedRawFields);
     }
 
-    private Field findFieldInHierarchy(Class<?> clazz, String fieldName) {
-        if (fieldName == null || fieldName.isBlank()) {
-            return null;
+    /**
+     * Congela a forma atual da consulta num {@link QueryTemplate}. Todos os valores
+     * passados em where() precisam ser {@link #PARAM}; eles viram as posições
+     * ?1..?n ligadas em {@link QueryTemplate#list(Object...)}/{@link QueryTemplate#one(Object...)}.
+     */
+    public QueryTemplate compile(String nome) {
+        if (nome == null || nome.isBlank()) {
+            throw new IllegalArgumentException("nome do template não pode ser nulo/vazio");
         }
-        String target = fieldName.trim();
 
-        Class<?> current = clazz;
-        while (current != null && current != Object.class) {
-            for (Field f : current.getDeclaredFields()) {
-                if (f.getName().equals(target)) {
-                    return f;
-                }
+        for (Object param : params) {
+            if (param != PARAM) {
+                throw new IllegalStateException("Template '" + nome
+                        + "' possui valor fixo no where(); use QueryBuilder.PARAM nas posições de parâmetro.");
             }
-            current = current.getSuperclass();
         }
-        return null;
+
+        return new QueryTemplate(
+                entityManager,
+                meterRegistry,
+                nome,
+                build(),
+                entityClass,
+                resultClass,
+                projection,
+                selectedRawFields,
+                params.size(),
+                maxResults,
+                entityName
+        );
     }
 
     public String build() {
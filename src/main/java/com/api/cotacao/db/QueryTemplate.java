@@ -0,0 +1,158 @@
+package com.api.cotacao.db;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.api.cotacao.dev.DevSqlLogger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+/**
+ * Forma de consulta definida uma única vez (via {@link QueryBuilder#compile(String)})
+ * e registrada como named query no EntityManagerFactory por
+ * {@link DAOController#registrar(String, QueryBuilder)}.
+ * Na execução só os parâmetros são ligados: sem montar JPQL nem reparsear HQL.
+ */
+public final class QueryTemplate {
+
+    private final EntityManager entityManager;
+    private final MeterRegistry meterRegistry;
+    private final String nome;
+    private final String jpql;
+    private final Class<?> entityClass;
+    private final Class<?> resultClass;
+    private final boolean projection;
+    private final List<String> selectedRawFields;
+    private final int totalParametros;
+    private final Integer maxResults;
+    private final String entityName;
+
+    // resolvidos na primeira execução
+    private Timer timerList;
+    private Timer timerOne;
+
+    QueryTemplate(EntityManager entityManager,
+                  MeterRegistry meterRegistry,
+                  String nome,
+                  String jpql,
+                  Class<?> entityClass,
+                  Class<?> resultClass,
+                  boolean projection,
+                  List<String> selectedRawFields,
+                  int totalParametros,
+                  Integer maxResults,
+                  String entityName) {
+        this.entityManager = entityManager;
+        this.meterRegistry = meterRegistry;
+        this.nome = nome;
+        this.jpql = jpql;
+        this.entityClass = entityClass;
+        this.resultClass = resultClass;
+        this.projection = projection;
+        this.selectedRawFields = List.copyOf(selectedRawFields);
+        this.totalParametros = totalParametros;
+        this.maxResults = maxResults;
+        this.entityName = entityName;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public String getJpql() {
+        return jpql;
+    }
+
+    /** Query usada só para registrar a named query (tipada quando não é projeção em entidade). */
+    Query criarDefinicao(EntityManager em) {
+        if (resultClass != null) {
+            return em.createQuery(jpql, resultClass);
+        }
+        if (entityClass != null && !projection) {
+            return em.createQuery(jpql, entityClass);
+        }
+        return em.createQuery(jpql);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> list(Object... valores) {
+        Timer.Sample amostra = ConsultaMetricas.iniciar(meterRegistry);
+        try {
+            Query query = prepare(valores);
+
+            if (projection && entityClass != null) {
+                List<?> raw = query.getResultList();
+                return (List<T>) QueryBuilder.mapToEntities(entityClass, selectedRawFields, raw);
+            }
+
+            return (List<T>) query.getResultList();
+        } finally {
+            if (amostra != null) {
+                if (timerList == null) {
+                    timerList = ConsultaMetricas.timer(meterRegistry, "list", entityName, nome);
+                }
+                amostra.stop(timerList);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T one(Object... valores) {
+        Timer.Sample amostra = ConsultaMetricas.iniciar(meterRegistry);
+        try {
+            Query query = prepare(valores);
+
+            if (projection && entityClass != null) {
+                Object row = query.getSingleResult();
+                return (T) QueryBuilder.mapSingleRowToEntity(entityClass, selectedRawFields, row);
+            }
+
+            return (T) query.getSingleResult();
+        } finally {
+            if (amostra != null) {
+                if (timerOne == null) {
+                    timerOne = ConsultaMetricas.timer(meterRegistry, "one", entityName, nome);
+                }
+                amostra.stop(timerOne);
+            }
+        }
+    }
+
+    private Query prepare(Object[] valores) {
+        int recebidos = (valores == null ? 0 : valores.length);
+        if (recebidos != totalParametros) {
+            throw new IllegalArgumentException("Template '" + nome + "' exige " + totalParametros
+                    + " parâmetro(s), recebeu " + recebidos);
+        }
+
+        Query query;
+        if (resultClass != null) {
+            query = entityManager.createNamedQuery(nome, resultClass);
+        } else if (entityClass != null && !projection) {
+            query = entityManager.createNamedQuery(nome, entityClass);
+        } else {
+            query = entityManager.createNamedQuery(nome);
+        }
+
+        if (maxResults != null) {
+            query.setMaxResults(maxResults);
+        }
+
+        for (int i = 0; i < recebidos; i++) {
+            query.setParameter(i + 1, valores[i]);
+        }
+
+        DevSqlLogger.logSql(jpql, recebidos == 0 ? List.of() : Arrays.asList(valores));
+
+        return query;
+    }
+
+    @Override
+    public String toString() {
+        return nome + ": " + jpql;
+    }
+}
@@ -0,0 +1,185 @@
+package com.api.cotacao.db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * DataSource das transações somente-leitura (ver ReplicasConfig): distribui
+ * as conexões entre as réplicas em round-robin. Uma verificação periódica tira
+ * de circulação as réplicas que não respondem ou cujo atraso de replicação
+ * passa de {@code maxAtrasoSegundos}, e as devolve quando se recuperam.
+ * Sem réplica saudável, as leituras vão para o primário. A verificação
+ * começa em {@link #afterPropertiesSet()}, com o objeto já construído.
+ * <p>
+ * Uma réplica em uso pode estar até {@code maxAtrasoSegundos} atrás, mais um
+ * intervalo de verificação. Por isso, depois de cada alteração confirmada
+ * ({@link #alteracaoConfirmada(long)}), as leituras ficam no primário durante esse
+ * tempo: a versão dos dados (ETag) avança no commit, e uma réplica atrasada
+ * devolveria as linhas antigas sob a versão nova.
+ */
+public class ReplicasDataSource extends AbstractDataSource implements InitializingBean, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicasDataSource.class);
+
+    // atraso 0 fora de recuperação (não é réplica) ou com todo o WAL recebido já aplicado:
+    // com o primário ocioso, now() - pg_last_xact_replay_timestamp() cresce sem haver defasagem
+    private static final String SQL_ATRASO = """
+            SELECT CASE
+                     WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                     ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END
+            """;
+
+    private final DataSource primario;
+    private final List<HikariDataSource> replicas;
+    private final long intervaloVerificacaoMs;
+    private final int maxAtrasoSegundos;
+    private final long janelaPrimarioMs;
+
+    // epoch millis da última alteração confirmada no primário
+    private final AtomicLong ultimaAlteracaoMs = new AtomicLong();
+
+    private volatile List<HikariDataSource> saudaveis;
+    private final AtomicInteger proxima = new AtomicInteger();
+
+    private final ScheduledExecutorService verificador;
+
+    public ReplicasDataSource(DataSource primario, List<HikariDataSource> replicas,
+                              long intervaloVerificacaoMs, int maxAtrasoSegundos) {
+        this.primario = primario;
+        this.replicas = List.copyOf(replicas);
+        this.intervaloVerificacaoMs = intervaloVerificacaoMs;
+        this.maxAtrasoSegundos = maxAtrasoSegundos;
+        this.janelaPrimarioMs = maxAtrasoSegundos * 1000L + intervaloVerificacaoMs;
+        this.saudaveis = List.of();
+
+        this.verificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replicas-verificacao");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // até a primeira verificação terminar, as leituras vão para o primário
+        verificador.scheduleWithFixedDelay(this::verificar, 0, intervaloVerificacaoMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return conectar(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return conectar(username, password);
+    }
+
+    /**
+     * Registra uma alteração confirmada no primário, no instante {@code epochMillis}.
+     * Até passar a janela de atraso permitido, as leituras não vão às réplicas.
+     */
+    public void alteracaoConfirmada(long epochMillis) {
+        ultimaAlteracaoMs.accumulateAndGet(epochMillis, Math::max);
+    }
+
+    // credenciais nulas: as do pool de destino
+    private Connection conectar(String username, String password) throws SQLException {
+        List<HikariDataSource> atuais = saudaveis;
+        if (atuais.isEmpty() || System.currentTimeMillis() - ultimaAlteracaoMs.get() < janelaPrimarioMs) {
+            return conectar(primario, username, password);
+        }
+
+        HikariDataSource replica = atuais.get(Math.floorMod(proxima.getAndIncrement(), atuais.size()));
+        try {
+            return conectar(replica, username, password);
+        } catch (SQLException e) {
+            // fica fora até a próxima verificação confirmar que voltou
+            log.warn("Réplica {} indisponível; leitura enviada ao primário: {}", replica.getPoolName(), e.getMessage());
+            remover(replica);
+            return conectar(primario, username, password);
+        }
+    }
+
+    private static Connection conectar(DataSource destino, String username, String password) throws SQLException {
+        return username == null && password == null
+                ? destino.getConnection()
+                : destino.getConnection(username, password);
+    }
+
+    /** Réplicas em uso agora (nomes dos pools). */
+    public List<String> getSaudaveis() {
+        return saudaveis.stream().map(HikariDataSource::getPoolName).toList();
+    }
+
+    void verificar() {
+        List<HikariDataSource> novas = new ArrayList<>(replicas.size());
+
+        for (HikariDataSource replica : replicas) {
+            if (saudavel(replica)) {
+                novas.add(replica);
+            }
+        }
+
+        List<HikariDataSource> anteriores = saudaveis;
+        if (!novas.equals(anteriores)) {
+            log.info("Réplicas de leitura em uso: {} de {} {}", novas.size(), replicas.size(),
+                    novas.stream().map(HikariDataSource::getPoolName).toList());
+        }
+        saudaveis = List.copyOf(novas);
+    }
+
+    private boolean saudavel(HikariDataSource replica) {
+        try (Connection conexao = replica.getConnection();
+             Statement st = conexao.createStatement();
+             ResultSet rs = st.executeQuery(SQL_ATRASO)) {
+
+            double atraso = rs.next() ? rs.getDouble(1) : 0;
+            if (atraso > maxAtrasoSegundos) {
+                log.warn("Réplica {} com {} s de atraso na replicação (máximo {} s)",
+                        replica.getPoolName(), Math.round(atraso), maxAtrasoSegundos);
+                return false;
+            }
+            return true;
+
+        } catch (Exception e) {
+            log.debug("Verificação da réplica {} falhou: {}", replica.getPoolName(), e.getMessage());
+            return false;
+        }
+    }
+
+    // corrida com verificar() é inofensiva: a próxima verificação decide
+    private void remover(HikariDataSource replica) {
+        List<HikariDataSource> atuais = new ArrayList<>(saudaveis);
+        if (atuais.remove(replica)) {
+            saudaveis = List.copyOf(atuais);
+        }
+    }
+
+    @Override
+    public void close() {
+        verificador.shutdownNow();
+        for (HikariDataSource replica : replicas) {
+            replica.close();
+        }
+    }
+}
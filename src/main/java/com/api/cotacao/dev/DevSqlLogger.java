@@ -9,16 +9,45 @@ import java.lang.reflect.Field;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trace de SQL/JPQL de baixo custo.
+ * No thread da requisição só acontece o sorteio da amostragem, a captura do
+ * chamador (StackWalker limitado) e um offer() num buffer circular limitado;
+ * bind de parâmetros, formatação e log rodam num thread de fundo.
+ * Com o buffer cheio o registro é descartado (nunca bloqueia a requisição).
+ */
 public final class DevSqlLogger {
 
     private static final Logger log = LoggerFactory.getLogger(DevSqlLogger.class);
 
-    private static boolean developerMode = false;
+    private static volatile boolean developerMode = false;
+
+    // trace fora do modo dev (produção), com amostragem
+    private static volatile boolean traceMode = false;
+    private static volatile double sampleRate = 1.0;
+
+    private static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    // quadros inspecionados no máximo para achar o chamador
+    private static final int MAX_CALLER_FRAMES = 32;
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private static volatile BlockingQueue<Registro> buffer = new ArrayBlockingQueue<>(DEFAULT_BUFFER_SIZE);
+    private static int bufferSize = DEFAULT_BUFFER_SIZE;
+    private static final AtomicLong DESCARTADOS = new AtomicLong();
+    private static Thread worker;
 
     // pacote base das entidades
     private static final String ENTITY_BASE_PACKAGE = "com.api.cotacao.entity";
@@ -36,14 +65,95 @@ public final class DevSqlLogger {
 
     public static void setDeveloperMode(boolean enabled) {
         developerMode = enabled;
+        if (enabled) {
+            ensureWorker();
+        }
+    }
+
+    /**
+     * Liga o trace fora do modo dev. {@code sampleRate} entre 0 e 1 (fração das
+     * consultas registradas); {@code bufferSize} é a capacidade do buffer de fundo.
+     */
+    public static synchronized void configureTrace(boolean enabled, double sampleRate, int bufferSize) {
+        if (sampleRate < 0.0 || sampleRate > 1.0) {
+            throw new IllegalArgumentException("sampleRate deve estar entre 0 e 1");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize deve ser maior que zero");
+        }
+
+        if (bufferSize != DevSqlLogger.bufferSize) {
+            buffer = new ArrayBlockingQueue<>(bufferSize);
+            DevSqlLogger.bufferSize = bufferSize;
+        }
+        DevSqlLogger.sampleRate = sampleRate;
+        traceMode = enabled;
+
+        if (enabled) {
+            ensureWorker();
+        }
+    }
+
+    /** Registros descartados por buffer cheio desde a subida. */
+    public static long getDescartados() {
+        return DESCARTADOS.get();
     }
 
     public static void logSql(String jpql, List<Object> params) {
-        if (!developerMode || !log.isInfoEnabled() || jpql == null) {
+        boolean dev = developerMode;
+        if ((!dev && !traceMode) || jpql == null) {
+            return;
+        }
+
+        // no modo dev tudo é registrado; em trace, só a fração amostrada
+        if (!dev) {
+            double rate = sampleRate;
+            if (rate < 1.0 && ThreadLocalRandom.current().nextDouble() >= rate) {
+                return;
+            }
+        }
+
+        Object[] snapshot = (params == null || params.isEmpty()) ? null : params.toArray();
+
+        if (!buffer.offer(new Registro(jpql, snapshot, resolveCaller(), dev))) {
+            DESCARTADOS.incrementAndGet();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Worker
+    // -------------------------------------------------------------------------
+
+    private static synchronized void ensureWorker() {
+        if (worker != null && worker.isAlive()) {
             return;
         }
 
-        String caller = resolveCaller();
+        worker = new Thread(DevSqlLogger::drenar, "dev-sql-logger");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private static void drenar() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // relê a referência a cada volta: configureTrace() pode trocar o buffer
+                Registro registro = buffer.poll(1, TimeUnit.SECONDS);
+                if (registro != null && log.isInfoEnabled()) {
+                    escrever(registro);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.debug("[DEV][SQL] Falha ao formatar registro de SQL: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void escrever(Registro registro) {
+        String jpql = registro.jpql();
+        List<Object> params = registro.params() == null ? List.of() : Arrays.asList(registro.params());
+        boolean cores = registro.cores();
 
         // 1) JPQL com parâmetros embutidos (sem formatar ainda)
         String bound = bindParams(jpql, params);
@@ -58,17 +168,17 @@ public final class DevSqlLogger {
             sqlDbPretty = formatSqlPretty(sqlDbRaw);
         }
 
-        String header        = GREEN  + "[DEV][SQL]"   + RESET;
-        String callerLabel   = GREEN  + "LOCAL      "  + RESET;
-        String selectLabel   = GREEN  + "SELECT     "  + RESET;
-        String selectDbLabel = GREEN  + "SELECT-BD  "  + RESET;
-        String paramsLabel   = GREEN  + "PARAMETROS "  + RESET;
+        String header        = cor(cores, GREEN, "[DEV][SQL]");
+        String callerLabel   = cor(cores, GREEN, "LOCAL      ");
+        String selectLabel   = cor(cores, GREEN, "SELECT     ");
+        String selectDbLabel = cor(cores, GREEN, "SELECT-BD  ");
+        String paramsLabel   = cor(cores, GREEN, "PARAMETROS ");
 
-        String selectColored  = YELLOW + "\n" + jpqlPretty  + RESET;
-        String paramsColored  = CYAN   + String.valueOf(params) + RESET;
+        String selectColored  = cor(cores, YELLOW, "\n" + jpqlPretty);
+        String paramsColored  = cor(cores, CYAN, String.valueOf(params));
 
         if (sqlDbPretty != null) {
-            String selectDbColored = YELLOW + "\n" + sqlDbPretty + RESET;
+            String selectDbColored = cor(cores, YELLOW, "\n" + sqlDbPretty);
             log.info("""
                     {}
                       {}: {}
@@ -77,7 +187,7 @@ public final class DevSqlLogger {
                       {}: {}
                     """,
                     header,
-                    callerLabel,   caller,
+                    callerLabel,   registro.caller(),
                     selectLabel,   selectColored,
                     selectDbLabel, selectDbColored,
                     paramsLabel,   paramsColored
@@ -91,37 +201,41 @@ public final class DevSqlLogger {
                       {}: {}
                     """,
                     header,
-                    callerLabel,  caller,
+                    callerLabel,  registro.caller(),
                     selectLabel,  selectColored,
                     paramsLabel,  paramsColored
             );
         }
     }
 
+    private static String cor(boolean cores, String cor, String texto) {
+        return cores ? cor + texto + RESET : texto;
+    }
+
     // -------------------------------------------------------------------------
     // Helpers
     // -------------------------------------------------------------------------
 
     private static String resolveCaller() {
-        StackTraceElement[] stack = Thread.currentThread().getStackTrace();
-
-        for (StackTraceElement e : stack) {
-            String cn = e.getClassName();
-
-            if (cn.equals(DevSqlLogger.class.getName())) continue;
-            if (cn.contains("QueryBuilder")) continue;
-            if (cn.contains("DAOController")) continue;
-            if (cn.startsWith("java.")) continue;
-            if (cn.startsWith("jakarta.")) continue;
-            if (cn.startsWith("org.springframework")) continue;
-            if (cn.startsWith("org.hibernate")) continue;
+        return STACK_WALKER.walk(frames -> frames
+                .limit(MAX_CALLER_FRAMES)
+                .filter(f -> !isInfraestrutura(f.getClassName()))
+                .findFirst()
+                .map(f -> f.getClassName() + "#" + f.getMethodName() + ":" + f.getLineNumber())
+                .orElse("unknown"));
+    }
 
-            return cn + "#" + e.getMethodName() + ":" + e.getLineNumber();
-        }
-        return "unknown";
+    private static boolean isInfraestrutura(String cn) {
+        return cn.equals(DevSqlLogger.class.getName())
+                || cn.startsWith("com.api.cotacao.db.")
+                || cn.startsWith("java.")
+                || cn.startsWith("jdk.")
+                || cn.startsWith("jakarta.")
+                || cn.startsWith("org.springframework")
+                || cn.startsWith("org.hibernate");
     }
 
-    // Embute os parâmetros na JPQL (sem formatar ainda)
+    // Embute os parâmetros na JPQL (sem formatar ainda), numa única passada
     private static String bindParams(String jpql, List<Object> params) {
         if (jpql == null) {
             return null;
@@ -130,31 +244,51 @@ public final class DevSqlLogger {
             return jpql;
         }
 
-        String resolved = jpql;
-
-        // de trás pra frente pra não zoar ?10 com ?1
-        for (int i = params.size(); i >= 1; i--) {
-            Object value = params.get(i - 1);
-            String rendered;
-
-            if (value == null) {
-                rendered = "null";
-            } else if (value instanceof String) {
-                rendered = "'" + value + "'";
-            } else if (value instanceof LocalDate
-                    || value instanceof LocalDateTime
-                    || value instanceof LocalTime) {
-                rendered = "'" + value.toString() + "'";
-            } else {
-                rendered = value.toString();
+        StringBuilder sb = new StringBuilder(jpql.length() + params.size() * 16);
+        int len = jpql.length();
+        int i = 0;
+
+        while (i < len) {
+            char c = jpql.charAt(i);
+            if (c != '?') {
+                sb.append(c);
+                i++;
+                continue;
             }
 
-            resolved = resolved.replace("?" + i, rendered);
+            int j = i + 1;
+            int pos = 0;
+            while (j < len && Character.isDigit(jpql.charAt(j))) {
+                pos = pos * 10 + (jpql.charAt(j) - '0');
+                j++;
+            }
+
+            if (j == i + 1 || pos < 1 || pos > params.size()) {
+                sb.append(jpql, i, j);
+            } else {
+                sb.append(render(params.get(pos - 1)));
+            }
+            i = j;
         }
 
-        return resolved;
+        return sb.toString();
     }
 
+    private static String render(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof String
+                || value instanceof LocalDate
+                || value instanceof LocalDateTime
+                || value instanceof LocalTime) {
+            return "'" + value + "'";
+        }
+        return value.toString();
+    }
+
+    private record Registro(String jpql, Object[] params, String caller, boolean cores) {}
+
     // Formata SQL/JPQL em múltiplas linhas
     private static String formatSqlPretty(String sqlRaw) {
         if (sqlRaw == null || sqlRaw.isBlank()) {
@@ -3,7 +3,10 @@ package com.api.cotacao.entity;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+import com.api.cotacao.utils.PrecoFixo;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -25,8 +28,10 @@ public class CotacaoCafeEntity {
 	@Column(name = "cotcaf_tipo", length = 100)
 	private String tipoCafe;
 
+	// centésimos de centavo; no banco continua double (ver PrecoFixoConverter)
 	@Column(name = "cotcaf_valor", nullable = false)
-	private Double valor;
+	@Convert(converter = PrecoFixoConverter.class)
+	private long valor;
 
 	@Column(name = "cotcaf_variacao")
 	private Double variacao;
@@ -62,10 +67,18 @@ public class CotacaoCafeEntity {
 	}
 
 	public BigDecimal getValor() {
-		return new BigDecimal(valor);
+		return PrecoFixo.paraBigDecimal(valor);
 	}
 
 	public void setValor(Double valor) {
+		this.valor = PrecoFixo.deDouble(valor);
+	}
+
+	public long getValorFixo() {
+		return valor;
+	}
+
+	public void setValorFixo(long valor) {
 		this.valor = valor;
 	}
 
@@ -99,7 +112,7 @@ public class CotacaoCafeEntity {
 	public CotacaoCafeEntity(LocalDate dataReferencia, String tipoCafe, Double valor, Double variacao) {
 		this.dataReferencia = dataReferencia;
 		this.tipoCafe = tipoCafe;
-		this.valor = valor;
+		this.valor = PrecoFixo.deDouble(valor);
 		this.variacao = variacao;
 		this.origemDado = "CEPEA";
 	}
@@ -107,7 +120,7 @@ public class CotacaoCafeEntity {
 	@Override
 	public String toString() {
 		return "CotacaoCafeEntity{" + "id=" + id + ", dataReferencia=" + dataReferencia + ", tipoCafe='" + tipoCafe
-				+ '\'' + ", valor=" + valor + ", variacao=" + variacao + ", origemDado='" + origemDado + '\'' + '}';
+				+ '\'' + ", valor=" + getValor() + ", variacao=" + variacao + ", origemDado='" + origemDado + '\'' + '}';
 	}
 
 }
@@ -0,0 +1,186 @@
+package com.api.cotacao.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Resumo mensal/anual pré-calculado de uma série (origem, tipo), mantido
+ * pela importação. Valores em ponto fixo (centésimos de centavo).
+ */
+@Entity
+@Table(name = "cotacao_cafe_resumo")
+public class CotacaoCafeResumoEntity {
+
+    public static final String INTERVALO_MENSAL = "MENSAL";
+    public static final String INTERVALO_ANUAL = "ANUAL";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "cotres_id")
+    private Long id;
+
+    @Column(name = "cotres_intervalo", nullable = false, length = 10)
+    private String intervalo;
+
+    // primeiro dia do mês/ano
+    @Column(name = "cotres_dataInicio", nullable = false)
+    private LocalDate dataInicio;
+
+    @Column(name = "cotres_tipo", length = 100)
+    private String tipoCafe;
+
+    @Column(name = "cotres_origem", length = 255)
+    private String origemDado;
+
+    @Column(name = "cotres_abertura", nullable = false)
+    private long abertura;
+
+    @Column(name = "cotres_maxima", nullable = false)
+    private long maxima;
+
+    @Column(name = "cotres_minima", nullable = false)
+    private long minima;
+
+    @Column(name = "cotres_fechamento", nullable = false)
+    private long fechamento;
+
+    @Column(name = "cotres_media", nullable = false)
+    private long media;
+
+    @Column(name = "cotres_pontos", nullable = false)
+    private int pontos;
+
+    @Column(name = "cotres_atualizadoEm")
+    private LocalDateTime atualizadoEm;
+
+    public CotacaoCafeResumoEntity() {
+    }
+
+    public CotacaoCafeResumoEntity(String intervalo, LocalDate dataInicio, String tipoCafe, String origemDado) {
+        this.intervalo = intervalo;
+        this.dataInicio = dataInicio;
+        this.tipoCafe = tipoCafe;
+        this.origemDado = origemDado;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getIntervalo() {
+        return intervalo;
+    }
+
+    public void setIntervalo(String intervalo) {
+        this.intervalo = intervalo;
+    }
+
+    public LocalDate getDataInicio() {
+        return dataInicio;
+    }
+
+    public void setDataInicio(LocalDate dataInicio) {
+        this.dataInicio = dataInicio;
+    }
+
+    public String getTipoCafe() {
+        return tipoCafe;
+    }
+
+    public void setTipoCafe(String tipoCafe) {
+        this.tipoCafe = tipoCafe;
+    }
+
+    public String getOrigemDado() {
+        return origemDado;
+    }
+
+    public void setOrigemDado(String origemDado) {
+        this.origemDado = origemDado;
+    }
+
+    public long getAbertura() {
+        return abertura;
+    }
+
+    public void setAbertura(long abertura) {
+        this.abertura = abertura;
+    }
+
+    public long getMaxima() {
+        return maxima;
+    }
+
+    public void setMaxima(long maxima) {
+        this.maxima = maxima;
+    }
+
+    public long getMinima() {
+        return minima;
+    }
+
+    public void setMinima(long minima) {
+        this.minima = minima;
+    }
+
+    public long getFechamento() {
+        return fechamento;
+    }
+
+    public void setFechamento(long fechamento) {
+        this.fechamento = fechamento;
+    }
+
+    public long getMedia() {
+        return media;
+    }
+
+    public void setMedia(long media) {
+        this.media = media;
+    }
+
+    public int getPontos() {
+        return pontos;
+    }
+
+    public void setPontos(int pontos) {
+        this.pontos = pontos;
+    }
+
+    public LocalDateTime getAtualizadoEm() {
+        return atualizadoEm;
+    }
+
+    public void setAtualizadoEm(LocalDateTime atualizadoEm) {
+        this.atualizadoEm = atualizadoEm;
+    }
+
+    @Override
+    public String toString() {
+        return "CotacaoCafeResumoEntity{" +
+                "id=" + id +
+                ", intervalo='" + intervalo + '\'' +
+                ", dataInicio=" + dataInicio +
+                ", tipoCafe='" + tipoCafe + '\'' +
+                ", origemDado='" + origemDado + '\'' +
+                ", abertura=" + abertura +
+                ", maxima=" + maxima +
+                ", minima=" + minima +
+                ", fechamento=" + fechamento +
+                ", media=" + media +
+                ", pontos=" + pontos +
+                ", atualizadoEm=" + atualizadoEm +
+                '}';
+    }
+}
@@ -13,6 +13,13 @@ import jakarta.persistence.Table;
 @Table(name = "imp_historico")
 public class ImpHistoricoEntity {
 
+    public static final String STATUS_PENDENTE = "PENDENTE";
+    public static final String STATUS_PROCESSANDO = "PROCESSANDO";
+    public static final String STATUS_CONCLUIDO = "CONCLUIDO";
+    public static final String STATUS_ERRO = "ERRO";
+    // conteúdo idêntico a uma importação já concluída
+    public static final String STATUS_IGNORADO = "IGNORADO";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "imp_id")
@@ -33,6 +40,37 @@ public class ImpHistoricoEntity {
     @Column(name = "imp_tempoExecucao", nullable = false)
     private Long tempoExecucaoMs;
 
+    // alocados pela thread da importação (não é pico nem uso da JVM)
+    @Column(name = "imp_bytesAlocados")
+    private Long bytesAlocados;
+
+    @Column(name = "imp_registrosPorSegundo")
+    private Double registrosPorSegundo;
+
+    @Column(name = "imp_status", length = 20)
+    private String status;
+
+    @Column(name = "imp_registrosLidos")
+    private Long registrosLidos;
+
+    @Column(name = "imp_registrosGravados")
+    private Long registrosGravados;
+
+    @Column(name = "imp_iniciadoEm")
+    private LocalDateTime iniciadoEm;
+
+    @Column(name = "imp_finalizadoEm")
+    private LocalDateTime finalizadoEm;
+
+    @Column(name = "imp_mensagemErro", length = 1000)
+    private String mensagemErro;
+
+    @Column(name = "imp_tempoParse")
+    private Long tempoParseMs;
+
+    @Column(name = "imp_hash", length = 64)
+    private String hashConteudo;
+
     public ImpHistoricoEntity() {
     }
 
@@ -98,6 +136,86 @@ public class ImpHistoricoEntity {
         this.tempoExecucaoMs = tempoExecucaoMs;
     }
 
+    public Long getBytesAlocados() {
+        return bytesAlocados;
+    }
+
+    public void setBytesAlocados(Long bytesAlocados) {
+        this.bytesAlocados = bytesAlocados;
+    }
+
+    public Double getRegistrosPorSegundo() {
+        return registrosPorSegundo;
+    }
+
+    public void setRegistrosPorSegundo(Double registrosPorSegundo) {
+        this.registrosPorSegundo = registrosPorSegundo;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getRegistrosLidos() {
+        return registrosLidos;
+    }
+
+    public void setRegistrosLidos(Long registrosLidos) {
+        this.registrosLidos = registrosLidos;
+    }
+
+    public Long getRegistrosGravados() {
+        return registrosGravados;
+    }
+
+    public void setRegistrosGravados(Long registrosGravados) {
+        this.registrosGravados = registrosGravados;
+    }
+
+    public LocalDateTime getIniciadoEm() {
+        return iniciadoEm;
+    }
+
+    public void setIniciadoEm(LocalDateTime iniciadoEm) {
+        this.iniciadoEm = iniciadoEm;
+    }
+
+    public LocalDateTime getFinalizadoEm() {
+        return finalizadoEm;
+    }
+
+    public void setFinalizadoEm(LocalDateTime finalizadoEm) {
+        this.finalizadoEm = finalizadoEm;
+    }
+
+    public String getMensagemErro() {
+        return mensagemErro;
+    }
+
+    public void setMensagemErro(String mensagemErro) {
+        this.mensagemErro = mensagemErro;
+    }
+
+    public Long getTempoParseMs() {
+        return tempoParseMs;
+    }
+
+    public void setTempoParseMs(Long tempoParseMs) {
+        this.tempoParseMs = tempoParseMs;
+    }
+
+    public String getHashConteudo() {
+        return hashConteudo;
+    }
+
+    public void setHashConteudo(String hashConteudo) {
+        this.hashConteudo = hashConteudo;
+    }
+
     @Override
     public String toString() {
         return "ImpHistoricoEntity{" +
@@ -107,6 +225,16 @@ public class ImpHistoricoEntity {
                 ", data=" + data +
                 ", totalRegistro=" + totalRegistro +
                 ", tempoExecucaoMs=" + tempoExecucaoMs +
+                ", bytesAlocados=" + bytesAlocados +
+                ", registrosPorSegundo=" + registrosPorSegundo +
+                ", status='" + status + '\'' +
+                ", registrosLidos=" + registrosLidos +
+                ", registrosGravados=" + registrosGravados +
+                ", iniciadoEm=" + iniciadoEm +
+                ", finalizadoEm=" + finalizadoEm +
+                ", mensagemErro='" + mensagemErro + '\'' +
+                ", tempoParseMs=" + tempoParseMs +
+                ", hashConteudo='" + hashConteudo + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,26 @@
+package com.api.cotacao.entity;
+
+import com.api.cotacao.utils.PrecoFixo;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Mantém a coluna de valor como double precision no banco e expõe o
+ * atributo como preço em ponto fixo ({@link PrecoFixo}). Coluna com mais de
+ * 4 casas é arredondada na 4ª ao ler; o efeito na saída com 2 casas está em
+ * {@link PrecoFixo#paraBigDecimal(long, int)}.
+ */
+@Converter
+public class PrecoFixoConverter implements AttributeConverter<Long, Double> {
+
+    @Override
+    public Double convertToDatabaseColumn(Long fixo) {
+        return fixo == null ? null : PrecoFixo.paraDouble(fixo);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(Double valor) {
+        return valor == null ? null : PrecoFixo.deDouble(valor);
+    }
+}
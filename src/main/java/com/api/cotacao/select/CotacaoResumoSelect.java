@@ -0,0 +1,65 @@
+package com.api.cotacao.select;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.api.cotacao.db.Condicao;
+import com.api.cotacao.db.DAOController;
+import com.api.cotacao.db.QueryBuilder;
+import com.api.cotacao.entity.CotacaoCafeResumoEntity;
+
+import jakarta.persistence.NoResultException;
+
+public class CotacaoResumoSelect {
+	
+	/** Resumos do intervalo com início em [dataInicio, dataFim]; origem/tipo nulos trazem todas as séries. */
+	public static List<CotacaoCafeResumoEntity> buscarPorPeriodo(DAOController dao, String intervalo, String origem, String tipo,
+			LocalDate dataInicio, LocalDate dataFim) {
+		List<CotacaoCafeResumoEntity> resumoList;
+		try {
+			QueryBuilder query = dao.select()
+					.from(CotacaoCafeResumoEntity.class)
+					.where("intervalo", Condicao.EQUAL, intervalo)
+					.where("dataInicio", Condicao.BETWEEN, dataInicio, dataFim);
+			
+			if (origem != null) {
+				query.where("origemDado", Condicao.EQUAL, origem);
+			}
+			if (tipo != null) {
+				query.where("tipoCafe", Condicao.EQUAL, tipo);
+			}
+			
+			resumoList = query
+					.orderBy("dataInicio", true)
+					.list();
+			
+		} catch (NoResultException not) {
+			resumoList = new ArrayList<CotacaoCafeResumoEntity>();
+			
+		}
+		
+		return resumoList;
+	}
+	
+	/** Resumos mensais e anuais de uma série com início em [dataInicio, dataFim]. */
+	public static List<CotacaoCafeResumoEntity> buscarDaSerie(DAOController dao, String origem, String tipo,
+			LocalDate dataInicio, LocalDate dataFim) {
+		List<CotacaoCafeResumoEntity> resumoList;
+		try {
+			resumoList = dao.select()
+					.from(CotacaoCafeResumoEntity.class)
+					.where("origemDado", Condicao.EQUAL, origem)
+					.where("tipoCafe", Condicao.EQUAL, tipo)
+					.where("dataInicio", Condicao.BETWEEN, dataInicio, dataFim)
+					.list();
+			
+		} catch (NoResultException not) {
+			resumoList = new ArrayList<CotacaoCafeResumoEntity>();
+			
+		}
+		
+		return resumoList;
+	}
+
+}
@@ -3,24 +3,75 @@ package com.api.cotacao.select;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
+import com.api.cotacao.DTO.CotacaoCafePeriodoDTO;
 import com.api.cotacao.db.Condicao;
 import com.api.cotacao.db.DAOController;
+import com.api.cotacao.db.QueryBuilder;
 import com.api.cotacao.entity.CotacaoCafeEntity;
 
 import jakarta.persistence.NoResultException;
 
 public class CotacaoSelect {
 	
+	private static final String POR_DATA_E_ORIGEM = "CotacaoSelect.buscarPorDataEOrigem";
+	private static final String POR_PERIODO = "CotacaoSelect.buscarPorPeriodo";
+	private static final String POR_PERIODO_DTO = "CotacaoSelect.buscarPorPeriodoDTO";
+	private static final String POR_PERIODO_E_SERIE = "CotacaoSelect.buscarPorPeriodoESerie";
+	private static final String ANTERIOR_NA_SERIE = "CotacaoSelect.buscarAnteriorNaSerie";
+	private static final String SEGUINTE_NA_SERIE = "CotacaoSelect.buscarSeguinteNaSerie";
+	
+	/**
+	 * Registra as consultas quentes como templates compilados (named queries).
+	 * Chamado uma vez na subida (ver ConsultasConfig).
+	 */
+	public static void registrarConsultas(DAOController dao) {
+		dao.registrar(POR_DATA_E_ORIGEM, dao.select()
+				.from(CotacaoCafeEntity.class)
+				.where("dataReferencia", Condicao.EQUAL, QueryBuilder.PARAM)
+				.where("origemDado", Condicao.EQUAL, QueryBuilder.PARAM));
+		
+		dao.registrar(POR_PERIODO, dao.select("dataReferencia", "valor")
+				.from(CotacaoCafeEntity.class)
+				.where("dataReferencia", Condicao.BETWEEN, QueryBuilder.PARAM, QueryBuilder.PARAM)
+				.orderBy("dataReferencia", true));
+		
+		dao.registrar(POR_PERIODO_DTO, dao.select()
+				.selectNew(CotacaoCafePeriodoDTO.class, "dataReferencia", "valor")
+				.from(CotacaoCafeEntity.class)
+				.where("dataReferencia", Condicao.BETWEEN, QueryBuilder.PARAM, QueryBuilder.PARAM)
+				.orderBy("dataReferencia", true));
+		
+		dao.registrar(POR_PERIODO_E_SERIE, dao.select()
+				.from(CotacaoCafeEntity.class)
+				.where("origemDado", Condicao.EQUAL, QueryBuilder.PARAM)
+				.where("tipoCafe", Condicao.EQUAL, QueryBuilder.PARAM)
+				.where("dataReferencia", Condicao.BETWEEN, QueryBuilder.PARAM, QueryBuilder.PARAM));
+		
+		dao.registrar(ANTERIOR_NA_SERIE, dao.select()
+				.from(CotacaoCafeEntity.class)
+				.where("origemDado", Condicao.EQUAL, QueryBuilder.PARAM)
+				.where("tipoCafe", Condicao.EQUAL, QueryBuilder.PARAM)
+				.where("dataReferencia", Condicao.LESS_THAN, QueryBuilder.PARAM)
+				.orderBy("dataReferencia", false)
+				.limit(1));
+		
+		dao.registrar(SEGUINTE_NA_SERIE, dao.select()
+				.from(CotacaoCafeEntity.class)
+				.where("origemDado", Condicao.EQUAL, QueryBuilder.PARAM)
+				.where("tipoCafe", Condicao.EQUAL, QueryBuilder.PARAM)
+				.where("dataReferencia", Condicao.GREATER_THAN, QueryBuilder.PARAM)
+				.orderBy("dataReferencia", true)
+				.limit(1));
+	}
+	
 	public static CotacaoCafeEntity buscarPorDataEOrigem(DAOController dao,LocalDate dataReferencia, String origem) {
 		CotacaoCafeEntity cotacaoBean ;
 		
 		try {
-			cotacaoBean= dao.select()
-					.from("CotacaoCafeEntity")
-					.where("dataReferencia", Condicao.EQUAL, dataReferencia)
-					.where("origemDado", Condicao.EQUAL, origem)
-					.one();			
+			cotacaoBean= dao.consulta(POR_DATA_E_ORIGEM)
+					.one(dataReferencia, origem);			
 			
 		} catch (NoResultException not) {
 			cotacaoBean = new CotacaoCafeEntity();
@@ -34,12 +85,8 @@ public class CotacaoSelect {
 	public static List<CotacaoCafeEntity> buscarPorPeriodo(DAOController dao, LocalDate dataInicio, LocalDate dataFim) {
 		 List<CotacaoCafeEntity> cotacaoList;
 		 try {
-			 cotacaoList = dao.select()
-					 .select("dataReferencia", "valor")
-					 .from(CotacaoCafeEntity.class)
-					 .where("dataReferencia", Condicao.BETWEEN, dataInicio, dataFim)
-					 .orderBy("dataReferencia", true)
-					 .list();
+			 cotacaoList = dao.consulta(POR_PERIODO)
+					 .list(dataInicio, dataFim);
 			 
 			 
 		 } catch (NoResultException not) {
@@ -50,6 +97,137 @@ public class CotacaoSelect {
 		 return cotacaoList;
 
 	    }
+	
+	/** Mesmo período de {@link #buscarPorPeriodo}, projetado direto no DTO (sem entidade intermediária). */
+	public static List<CotacaoCafePeriodoDTO> buscarPorPeriodoDTO(DAOController dao, LocalDate dataInicio, LocalDate dataFim) {
+		List<CotacaoCafePeriodoDTO> cotacaoList;
+		try {
+			cotacaoList = dao.consulta(POR_PERIODO_DTO)
+					.list(dataInicio, dataFim);
+			
+		} catch (NoResultException not) {
+			cotacaoList = new ArrayList<CotacaoCafePeriodoDTO>();
+			
+		}
+		
+		return cotacaoList;
+	}
+	
+	/** Cotações da série (origem, tipo) no período. */
+	public static List<CotacaoCafeEntity> buscarPorPeriodoESerie(DAOController dao, LocalDate dataInicio, LocalDate dataFim,
+			String origem, String tipo) {
+		List<CotacaoCafeEntity> cotacaoList;
+		try {
+			cotacaoList = dao.consulta(POR_PERIODO_E_SERIE)
+					.list(origem, tipo, dataInicio, dataFim);
+			
+		} catch (NoResultException not) {
+			cotacaoList = new ArrayList<CotacaoCafeEntity>();
+			
+		}
+		
+		return cotacaoList;
+	}
+	
+	/** Última cotação da série (origem, tipo) com data anterior a {@code data}, ou null. */
+	public static CotacaoCafeEntity buscarAnteriorNaSerie(DAOController dao, LocalDate data, String origem, String tipo) {
+		List<CotacaoCafeEntity> cotacaoList = dao.consulta(ANTERIOR_NA_SERIE)
+				.list(origem, tipo, data);
+		
+		return cotacaoList.isEmpty() ? null : cotacaoList.get(0);
+	}
+	
+	/** Primeira cotação da série (origem, tipo) com data posterior a {@code data}, ou null. */
+	public static CotacaoCafeEntity buscarSeguinteNaSerie(DAOController dao, LocalDate data, String origem, String tipo) {
+		List<CotacaoCafeEntity> cotacaoList = dao.consulta(SEGUINTE_NA_SERIE)
+				.list(origem, tipo, data);
+		
+		return cotacaoList.isEmpty() ? null : cotacaoList.get(0);
+	}
+	
+	public static List<CotacaoCafeEntity> buscarSerie(DAOController dao, String origem, String tipo) {
+		List<CotacaoCafeEntity> cotacaoList;
+		try {
+			QueryBuilder query = dao.select("dataReferencia", "valor")
+					.from(CotacaoCafeEntity.class);
+			
+			if (origem != null) {
+				query.where("origemDado", Condicao.EQUAL, origem);
+			}
+			if (tipo != null) {
+				query.where("tipoCafe", Condicao.EQUAL, tipo);
+			}
+			
+			cotacaoList = query
+					.orderBy("dataReferencia", true)
+					.list();
+			
+		} catch (NoResultException not) {
+			cotacaoList = new ArrayList<CotacaoCafeEntity>();
+			
+		}
+		
+		return cotacaoList;
+	}
+
+	/** Pares (origem, tipo) distintos com cotação gravada. */
+	public static List<CotacaoCafeEntity> buscarPares(DAOController dao) {
+		return dao.selectDistinct("origemDado", "tipoCafe")
+				.from(CotacaoCafeEntity.class)
+				.list();
+	}
+
+	/** Todas as cotações (origem, tipo, data e valor) ordenadas por data, para o snapshot das séries. */
+	public static List<CotacaoCafeEntity> buscarTodasSeries(DAOController dao) {
+		return dao.select("origemDado", "tipoCafe", "dataReferencia", "valor")
+				.from(CotacaoCafeEntity.class)
+				.orderBy("dataReferencia", true)
+				.list();
+	}
 
 
+	/** Série de uma origem/tipo no período (data e valor), ordenada por data. */
+	public static List<CotacaoCafeEntity> buscarSeriePorPeriodo(DAOController dao, String origem, String tipo,
+			LocalDate dataInicio, LocalDate dataFim) {
+		List<CotacaoCafeEntity> cotacaoList;
+		try {
+			cotacaoList = dao.select("dataReferencia", "valor")
+					.from(CotacaoCafeEntity.class)
+					.where("origemDado", Condicao.EQUAL, origem)
+					.where("tipoCafe", Condicao.EQUAL, tipo)
+					.where("dataReferencia", Condicao.BETWEEN, dataInicio, dataFim)
+					.orderBy("dataReferencia", true)
+					.list();
+			
+		} catch (NoResultException not) {
+			cotacaoList = new ArrayList<CotacaoCafeEntity>();
+			
+		}
+		
+		return cotacaoList;
+	}
+	
+	/**
+	 * Período projetado no DTO e lido sob demanda (sem montar a lista inteira).
+	 * Deve ser consumido e fechado dentro de uma transação.
+	 */
+	public static Stream<CotacaoCafePeriodoDTO> streamPorPeriodo(DAOController dao, String origem, String tipo,
+			LocalDate dataInicio, LocalDate dataFim, int fetchSize) {
+		QueryBuilder query = dao.select()
+				.selectNew(CotacaoCafePeriodoDTO.class, "dataReferencia", "valor")
+				.from(CotacaoCafeEntity.class)
+				.where("dataReferencia", Condicao.BETWEEN, dataInicio, dataFim);
+		
+		if (origem != null) {
+			query.where("origemDado", Condicao.EQUAL, origem);
+		}
+		if (tipo != null) {
+			query.where("tipoCafe", Condicao.EQUAL, tipo);
+		}
+		
+		return query
+				.orderBy("dataReferencia", true)
+				.stream(fetchSize);
+	}
+
 }
@@ -0,0 +1,82 @@
+package com.api.cotacao.select;
+
+import java.util.List;
+
+import com.api.cotacao.db.Condicao;
+import com.api.cotacao.db.DAOController;
+import com.api.cotacao.entity.ImpHistoricoEntity;
+
+import jakarta.persistence.NoResultException;
+
+public class ImpHistoricoSelect {
+	
+	public static ImpHistoricoEntity buscarPorId(DAOController dao, Long id) {
+		ImpHistoricoEntity historicoBean;
+		
+		try {
+			historicoBean = dao.select()
+					.from(ImpHistoricoEntity.class)
+					.where("id", Condicao.EQUAL, id)
+					.one();
+			
+		} catch (NoResultException not) {
+			historicoBean = null;
+			
+		}
+		
+		return historicoBean;
+	}
+	
+	/**
+	 * Importação concluída do mesmo conteúdo para a mesma origem, ou null.
+	 * O tipo de cada registro sai do próprio conteúdo (Café Robusta quando
+	 * ausente), então hash + origem já identificam as séries (origem, tipo) gravadas.
+	 */
+	public static ImpHistoricoEntity buscarConcluidoPorHash(DAOController dao, String hash, String origem) {
+		List<ImpHistoricoEntity> historicoList = dao.select()
+				.from(ImpHistoricoEntity.class)
+				.where("hashConteudo", Condicao.EQUAL, hash)
+				.where("origem", Condicao.EQUAL, origem)
+				.where("status", Condicao.EQUAL, ImpHistoricoEntity.STATUS_CONCLUIDO)
+				.limit(1)
+				.list();
+		
+		return historicoList.isEmpty() ? null : historicoList.get(0);
+	}
+
+	/** Históricos com qualquer um dos status informados, em ordem de id. */
+	public static List<ImpHistoricoEntity> buscarPorStatus(DAOController dao, String... status) {
+		return dao.select()
+				.from(ImpHistoricoEntity.class)
+				.where("status", Condicao.IN, (Object[]) status)
+				.orderBy("id", true)
+				.list();
+	}
+
+	/**
+	 * Quantas importações concluídas existem. Cada importação que grava
+	 * cotações marca o histórico CONCLUIDO na mesma transação, então o número
+	 * muda a cada commit, qualquer que seja a ordem dos ids.
+	 */
+	public static long contarConcluidos(DAOController dao) {
+		List<ImpHistoricoEntity> historicoList = dao.select("id")
+				.from(ImpHistoricoEntity.class)
+				.where("status", Condicao.EQUAL, ImpHistoricoEntity.STATUS_CONCLUIDO)
+				.list();
+		
+		return historicoList.size();
+	}
+
+	/** Importação concluída mais recente (maior id), ou null. */
+	public static ImpHistoricoEntity buscarUltimoConcluido(DAOController dao) {
+		List<ImpHistoricoEntity> historicoList = dao.select()
+				.from(ImpHistoricoEntity.class)
+				.where("status", Condicao.EQUAL, ImpHistoricoEntity.STATUS_CONCLUIDO)
+				.orderBy("id", false)
+				.limit(1)
+				.list();
+		
+		return historicoList.isEmpty() ? null : historicoList.get(0);
+	}
+
+}
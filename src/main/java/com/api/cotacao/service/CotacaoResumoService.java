@@ -0,0 +1,259 @@
+package com.api.cotacao.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.api.cotacao.DTO.CotacaoCafeResumoDTO;
+import com.api.cotacao.db.DAOController;
+import com.api.cotacao.entity.CotacaoCafeEntity;
+import com.api.cotacao.entity.CotacaoCafeResumoEntity;
+import com.api.cotacao.select.CotacaoResumoSelect;
+import com.api.cotacao.select.CotacaoSelect;
+import com.api.cotacao.utils.PrecoFixo;
+import com.api.cotacao.utils.Utils;
+
+/**
+ * Resumos mensais e anuais por (origem, tipo). A importação registra as
+ * cotações gravadas em {@link Afetados} e, ao final, só os meses/anos
+ * tocados são recalculados a partir das cotações do banco. O histórico que
+ * já existia antes dos resumos é preenchido uma vez pela migração V3.
+ * O recálculo de cada série é serializado entre importações simultâneas
+ * (ver {@link #travarSeries}).
+ */
+@Service
+public class CotacaoResumoService {
+
+    private static final Logger log = LoggerFactory.getLogger(CotacaoResumoService.class);
+
+    private static final String SQL_TRAVAR_SERIE = "SELECT pg_advisory_xact_lock(hashtextextended(?, 0))";
+
+    @Autowired
+    private DAOController dao;
+
+    @Value("${app.import.batch-size:500}")
+    private int tamanhoLote;
+
+    /** Meses (compactos, ver {@link Utils#mesCompacto}) tocados por série durante uma importação. */
+    public static final class Afetados {
+
+        private final Map<Serie, NavigableSet<Integer>> meses = new HashMap<>();
+
+        public void registrar(CotacaoCafeEntity cotacao) {
+            meses.computeIfAbsent(new Serie(cotacao.getOrigemDado(), cotacao.getTipoCafe()), s -> new TreeSet<>())
+                 .add(Utils.mesCompacto(cotacao.getDataReferencia()));
+        }
+
+        public boolean isEmpty() {
+            return meses.isEmpty();
+        }
+    }
+
+    /** Recalcula os resumos tocados, na transação do chamador. Retorna quantos foram gravados. */
+    @Transactional(rollbackFor = Exception.class)
+    public int atualizar(Afetados afetados) {
+        if (afetados.isEmpty()) {
+            return 0;
+        }
+
+        List<String> chaves = new ArrayList<>(afetados.meses.size());
+        for (Serie serie : afetados.meses.keySet()) {
+            chaves.add(chaveTrava(serie.origem(), serie.tipo()));
+        }
+        dao.naConexao(conexao -> {
+            travarSeries(conexao, chaves);
+            return null;
+        });
+
+        int gravados = 0;
+
+        for (Map.Entry<Serie, NavigableSet<Integer>> entry : afetados.meses.entrySet()) {
+            gravados += atualizarSerie(entry.getKey(), entry.getValue());
+        }
+
+        afetados.meses.clear();
+        return gravados;
+    }
+
+    /** Chave de {@link #travarSeries} para a série (origem, tipo). */
+    static String chaveTrava(String origem, String tipo) {
+        return "cotacao_cafe_resumo:" + origem + ":" + tipo;
+    }
+
+    /**
+     * Trava os resumos das séries até o fim da transação (pg_advisory_xact_lock).
+     * Sem isso, duas importações da mesma série recalculam cada uma sem as
+     * cotações ainda não confirmadas da outra: a última a gravar deixa o resumo
+     * incompleto, ou as duas inserem o mesmo resumo e uma falha no índice único.
+     * Travada, a segunda espera a primeira confirmar e, em READ COMMITTED, já
+     * lê as cotações dela. As chaves são travadas em ordem, para que importações
+     * com várias séries em comum não se bloqueiem mutuamente.
+     */
+    static void travarSeries(Connection conexao, Collection<String> chaves) throws SQLException {
+        try (PreparedStatement ps = conexao.prepareStatement(SQL_TRAVAR_SERIE)) {
+            for (String chave : new TreeSet<>(chaves)) {
+                ps.setString(1, chave);
+                ps.execute();
+            }
+        }
+    }
+
+    private int atualizarSerie(Serie serie, NavigableSet<Integer> meses) {
+        // o resumo anual precisa do ano inteiro, então a leitura cobre anos completos
+        int primeiroAno = meses.first() / 12;
+        int ultimoAno = meses.last() / 12;
+        LocalDate inicio = LocalDate.of(primeiroAno, 1, 1);
+        LocalDate fim = LocalDate.of(ultimoAno, 12, 31);
+
+        Set<Integer> anos = new HashSet<>();
+        for (int mes : meses) {
+            anos.add(mes / 12);
+        }
+
+        Map<Chave, Acumulador> acumuladores = new HashMap<>();
+
+        for (CotacaoCafeEntity cotacao : CotacaoSelect.buscarSeriePorPeriodo(dao, serie.origem(), serie.tipo(), inicio, fim)) {
+            LocalDate data = cotacao.getDataReferencia();
+            int mes = Utils.mesCompacto(data);
+
+            if (meses.contains(mes)) {
+                acumuladores.computeIfAbsent(new Chave(CotacaoCafeResumoEntity.INTERVALO_MENSAL, Utils.inicioDoMes(mes)),
+                        c -> new Acumulador()).adicionar(cotacao.getValorFixo());
+            }
+            if (anos.contains(data.getYear())) {
+                acumuladores.computeIfAbsent(new Chave(CotacaoCafeResumoEntity.INTERVALO_ANUAL, data.withDayOfYear(1)),
+                        c -> new Acumulador()).adicionar(cotacao.getValorFixo());
+            }
+        }
+
+        Map<Chave, CotacaoCafeResumoEntity> existentes = new HashMap<>();
+        for (CotacaoCafeResumoEntity resumo : CotacaoResumoSelect.buscarDaSerie(dao, serie.origem(), serie.tipo(), inicio, fim)) {
+            existentes.put(new Chave(resumo.getIntervalo(), resumo.getDataInicio()), resumo);
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<CotacaoCafeResumoEntity> lote = new ArrayList<>(acumuladores.size());
+
+        for (Map.Entry<Chave, Acumulador> entry : acumuladores.entrySet()) {
+            Chave chave = entry.getKey();
+            Acumulador acc = entry.getValue();
+
+            CotacaoCafeResumoEntity resumo = existentes.get(chave);
+            if (resumo == null) {
+                resumo = new CotacaoCafeResumoEntity(chave.intervalo(), chave.dataInicio(), serie.tipo(), serie.origem());
+            }
+
+            resumo.setAbertura(acc.abertura);
+            resumo.setMaxima(acc.maxima);
+            resumo.setMinima(acc.minima);
+            resumo.setFechamento(acc.fechamento);
+            resumo.setMedia(Math.round((double) acc.soma / acc.pontos));
+            resumo.setPontos(acc.pontos);
+            resumo.setAtualizadoEm(agora);
+            lote.add(resumo);
+        }
+
+        dao.salvarEmLote(lote, tamanhoLote);
+
+        log.info("Resumos atualizados: origem={}, tipo={}, anos {}-{}, {} resumos",
+                serie.origem(), serie.tipo(), primeiroAno, ultimoAno, lote.size());
+
+        return lote.size();
+    }
+
+    /**
+     * Resumos do intervalo (MENSAL ou ANUAL) com início em [dataInicio, dataFim].
+     * O ano anterior também é lido para calcular a variação anual.
+     */
+    @Transactional(readOnly = true)
+    public List<CotacaoCafeResumoDTO> buscar(String intervalo, String origem, String tipo, LocalDate dataInicio, LocalDate dataFim) {
+        List<CotacaoCafeResumoEntity> resumos = CotacaoResumoSelect.buscarPorPeriodo(
+                dao, intervalo, origem, tipo, dataInicio.minusYears(1), dataFim);
+
+        Map<ChaveSerie, Long> medias = new HashMap<>(resumos.size() * 2);
+        for (CotacaoCafeResumoEntity resumo : resumos) {
+            medias.put(new ChaveSerie(resumo.getOrigemDado(), resumo.getTipoCafe(), resumo.getDataInicio()), resumo.getMedia());
+        }
+
+        List<CotacaoCafeResumoDTO> lista = new ArrayList<>(resumos.size());
+        for (CotacaoCafeResumoEntity resumo : resumos) {
+            if (resumo.getDataInicio().isBefore(dataInicio)) {
+                continue;
+            }
+
+            Long mediaAnterior = medias.get(new ChaveSerie(
+                    resumo.getOrigemDado(), resumo.getTipoCafe(), resumo.getDataInicio().minusYears(1)));
+
+            lista.add(new CotacaoCafeResumoDTO(
+                    resumo.getDataInicio(),
+                    resumo.getOrigemDado(),
+                    resumo.getTipoCafe(),
+                    PrecoFixo.paraBigDecimal(resumo.getAbertura(), 2),
+                    PrecoFixo.paraBigDecimal(resumo.getMaxima(), 2),
+                    PrecoFixo.paraBigDecimal(resumo.getMinima(), 2),
+                    PrecoFixo.paraBigDecimal(resumo.getFechamento(), 2),
+                    PrecoFixo.paraBigDecimal(resumo.getMedia(), 2),
+                    resumo.getPontos(),
+                    variacaoPercentual(mediaAnterior, resumo.getMedia())
+            ));
+        }
+        return lista;
+    }
+
+    private static BigDecimal variacaoPercentual(Long anterior, long atual) {
+        if (anterior == null || anterior == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(atual - anterior)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(BigDecimal.valueOf(anterior), 2, RoundingMode.HALF_UP);
+    }
+
+    private record Serie(String origem, String tipo) {}
+
+    private record Chave(String intervalo, LocalDate dataInicio) {}
+
+    // distingue as séries quando origem/tipo não foram filtrados
+    private record ChaveSerie(String origem, String tipo, LocalDate dataInicio) {}
+
+    private static final class Acumulador {
+        long abertura;
+        long maxima = Long.MIN_VALUE;
+        long minima = Long.MAX_VALUE;
+        long fechamento;
+        long soma;
+        int pontos;
+
+        // as cotações chegam ordenadas por data
+        void adicionar(long valor) {
+            if (pontos == 0) {
+                abertura = valor;
+            }
+            maxima = Math.max(maxima, valor);
+            minima = Math.min(minima, valor);
+            fechamento = valor;
+            soma += valor;
+            pontos++;
+        }
+    }
+}
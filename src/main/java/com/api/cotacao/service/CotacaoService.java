@@ -1,115 +1,464 @@
 package com.api.cotacao.service;
 
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.api.cotacao.DTO.CotacaoCafeAgregadoDTO;
 import com.api.cotacao.DTO.CotacaoCafeDTO;
+import com.api.cotacao.DTO.CotacaoCafePaginaDTO;
 import com.api.cotacao.DTO.CotacaoCafePeriodoDTO;
+import com.api.cotacao.cache.CotacaoSerieCache;
+import com.api.cotacao.cache.SerieAgregacao;
+import com.api.cotacao.cache.SerieFormato;
 import com.api.cotacao.db.DAOController;
 import com.api.cotacao.entity.CotacaoCafeEntity;
 import com.api.cotacao.entity.ImpHistoricoEntity;
 import com.api.cotacao.select.CotacaoSelect;
+import com.api.cotacao.select.ImpHistoricoSelect;
+import com.api.cotacao.utils.ContadorInputStream;
+import com.api.cotacao.utils.FileUtils;
+import com.api.cotacao.utils.PrecoFixo;
 import com.api.cotacao.utils.Utils;
 
 @Service
 public class CotacaoService {
 
-	private static final String ORIGEM_CEPEA = "CEPEA";
+    private static final Logger log = LoggerFactory.getLogger(CotacaoService.class);
+
+	public static final String ORIGEM_CEPEA = "CEPEA";
 	private static final String TIPO_ROBUSTA = "Café Robusta";
 	private static final String TIPO_ARABICA = "Café Arabica";
 
+    // conflito no índice único (V2); só sobrescreve quando algo mudou
+    private static final String UPSERT_COTACAO = """
+            INSERT INTO cotacao_cafe (cotcaf_data_referencia, cotcaf_tipo, cotcaf_valor,
+                                      cotcaf_variacao, cotcaf_origem, cotcaf_criado_em)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (cotcaf_origem, cotcaf_tipo, cotcaf_data_referencia) DO UPDATE SET
+                cotcaf_valor = EXCLUDED.cotcaf_valor,
+                cotcaf_variacao = EXCLUDED.cotcaf_variacao,
+                cotcaf_criado_em = EXCLUDED.cotcaf_criado_em
+            WHERE (cotacao_cafe.cotcaf_valor, cotacao_cafe.cotcaf_variacao)
+                  IS DISTINCT FROM (EXCLUDED.cotcaf_valor, EXCLUDED.cotcaf_variacao)
+            """;
+
 
 
     @Autowired
     private DAOController dao;
 
+    @Autowired
+    private CotacaoSerieCache serieCache;
+
+    @Autowired
+    private CotacaoResumoService resumoService;
+
+    @Autowired
+    private ImportacaoMetricas metricas;
+
+    @Value("${app.import.batch-size:500}")
+    private int tamanhoLote;
+
+    @Value("${app.import.chunk-size:5000}")
+    private int tamanhoChunk;
+
+    @Value("${app.periodo.fetch-size:1000}")
+    private int tamanhoFetch;
+
+    @Transactional(rollbackFor = Exception.class)
     public void importarDeJson(String pathJson) throws Exception {
+        Path path = Path.of(pathJson);
+        importarDeJson(pathJson, new ImpHistoricoEntity(), new ImportacaoProgresso(FileUtils.size(path)));
+    }
+
+    /**
+     * Importa o arquivo atualizando {@code progresso} a cada bloco e grava o
+     * resultado em {@code historico} (inserido aqui se ainda não tiver id,
+     * como nos jobs assíncronos que o criam antes, com status PENDENTE).
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void importarDeJson(String pathJson, ImpHistoricoEntity historico, ImportacaoProgresso progresso) throws Exception {
         long start = System.currentTimeMillis();
+        long alocadosInicio = Utils.bytesAlocadosThread();
+        progresso.iniciar();
+
+        if (historico.getIniciadoEm() == null) {
+        	historico.setIniciadoEm(LocalDateTime.now());
+        }
 
         Path path = Path.of(pathJson);
         String nomeArquivo = path.getFileName().toString();
+        String hash = FileUtils.hashSha256(path);
 
-        List<CotacaoCafeDTO> dados = Utils.readJsonList(path, CotacaoCafeDTO.class);
+        historico.setNomeArquivo(nomeArquivo);
+        historico.setHashConteudo(hash);
 
-        int totalRegistros = 0;
+        if (isJaImportado(hash)) {
+        	log.info("Arquivo {} ignorado: conteúdo (sha256={}) já importado.", nomeArquivo, hash);
 
-        for (CotacaoCafeDTO cotacaoDTO : dados) {
-            if (cotacaoDTO.mesAno() == null || cotacaoDTO.valor() == null) {
-                continue; 
-            }
+        	historico.setOrigem(ORIGEM_CEPEA);
+        	historico.setData(LocalDateTime.now());
+        	historico.setTotalRegistro(0);
+        	historico.setTempoExecucaoMs(System.currentTimeMillis() - start);
+        	historico.setStatus(ImpHistoricoEntity.STATUS_IGNORADO);
+        	historico.setRegistrosLidos(0L);
+        	historico.setRegistrosGravados(0L);
+        	historico.setFinalizadoEm(LocalDateTime.now());
 
-            LocalDate dataReferencia = Utils.parseMesAno(cotacaoDTO.mesAno());
+        	historicoSave(historico);
+        	return;
+        }
 
-            CotacaoCafeEntity cotacao = CotacaoSelect.buscarPorDataEOrigem(dao, dataReferencia, ORIGEM_CEPEA);
+        AtomicInteger totalRegistros = new AtomicInteger();
+        CotacaoResumoService.Afetados afetados = new CotacaoResumoService.Afetados();
 
-            if (cotacao.getId() == null) {
-            	cotacao.setDataReferencia(dataReferencia);
-            	cotacao.setTipoCafe(TIPO_ROBUSTA); //Ajustar os arquivo dps apra pegar o tipo
-            	cotacao.setValor(cotacaoDTO.valor());
-            	cotacao.setVariacao(null);
-            	cotacao.setOrigemDado(ORIGEM_CEPEA);
-            	cotacao.setCriadoEm(LocalDate.now());
+        // o parse acontece entre uma entrega de bloco e a seguinte
+        long[] fimDoBloco = {System.nanoTime()};
 
-            } else {
-            	cotacao.setValor(cotacaoDTO.valor());
-            	cotacao.setCriadoEm(LocalDate.now());
-            }
-            
-            salvar(cotacao);
+        try (InputStream in = new ContadorInputStream(FileUtils.openInputStream(path), progresso::adicionarBytesLidos)) {
+        	Utils.streamJsonList(in, CotacaoCafeDTO.class, tamanhoChunk, chunk -> {
+        		metricas.fase(ImportacaoMetricas.FASE_LEITURA, System.nanoTime() - fimDoBloco[0]);
 
-            totalRegistros++;
+        		progresso.adicionarLidos(chunk.size());
+        		totalRegistros.addAndGet(gravarEmLote(chunk, progresso, afetados));
+
+        		fimDoBloco[0] = System.nanoTime();
+        	});
         }
+        metricas.fase(ImportacaoMetricas.FASE_LEITURA, System.nanoTime() - fimDoBloco[0]);
+
+        atualizarResumos(afetados);
 
         long end = System.currentTimeMillis();
         long tempoExecucao = end - start;
 
         //histórico 
-        ImpHistoricoEntity historico = new ImpHistoricoEntity();
-        historico.setNomeArquivo(nomeArquivo);
         historico.setOrigem(ORIGEM_CEPEA);
         historico.setData(LocalDateTime.now());
-        historico.setTotalRegistro(totalRegistros);
+        historico.setTotalRegistro(totalRegistros.get());
         historico.setTempoExecucaoMs(tempoExecucao);
+        historico.setBytesAlocados(Utils.bytesAlocadosDesde(alocadosInicio));
+        historico.setRegistrosPorSegundo(tempoExecucao > 0
+        		? totalRegistros.get() * 1000.0 / tempoExecucao
+        		: null);
+        historico.setStatus(ImpHistoricoEntity.STATUS_CONCLUIDO);
+        historico.setRegistrosLidos(progresso.getRegistrosLidos());
+        historico.setRegistrosGravados(progresso.getRegistrosGravados());
+        historico.setFinalizadoEm(LocalDateTime.now());
         
         historicoSave(historico);
 
+        metricas.concluidaAposCommit(ImportacaoMetricas.MODO_ARQUIVO, tempoExecucao,
+        		progresso.getRegistrosLidos(), progresso.getRegistrosGravados());
+
+        serieCache.invalidarAposCommit();
+
        
     }
     
+    /**
+     * Grava numa única transação os valores já consolidados de vários arquivos
+     * (importação de diretório) e o histórico de cada arquivo. {@code origens}
+     * aponta, por tipo/data, o histórico do arquivo de onde veio o valor: cada
+     * cotação gravada soma 1 em registrosGravados desse histórico. Cotações
+     * gravadas só pela variação recalculada de um vizinho não contam para arquivo nenhum.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int gravarConsolidado(Map<String, Map<LocalDate, Double>> valores,
+                                 Map<String, Map<LocalDate, ImpHistoricoEntity>> origens,
+                                 List<ImpHistoricoEntity> historicos) {
+        long start = System.currentTimeMillis();
+
+        CotacaoResumoService.Afetados afetados = new CotacaoResumoService.Afetados();
+        List<CotacaoCafeEntity> gravadas = gravarValores(valores, afetados);
+        atualizarResumos(afetados);
+
+        for (CotacaoCafeEntity cotacao : gravadas) {
+        	ImpHistoricoEntity origem = origens.getOrDefault(cotacao.getTipoCafe(), Map.of()).get(cotacao.getDataReferencia());
+        	if (origem != null) {
+        		origem.setRegistrosGravados(origem.getRegistrosGravados() + 1);
+        	}
+        }
+
+        long tempoGravacao = System.currentTimeMillis() - start;
+
+        for (ImpHistoricoEntity historico : historicos) {
+        	historico.setTempoExecucaoMs(historico.getTempoParseMs() + tempoGravacao);
+        	historico.setFinalizadoEm(LocalDateTime.now());
+        	historicoSave(historico);
+        }
+
+        serieCache.invalidarAposCommit();
+
+        return gravadas.size();
+    }
+
+    /**
+     * Consolida o bloco de DTOs em {@code destino} (tipo -> data -> valor, o
+     * último valor de cada tipo/data prevalece). Retorna quantos registros válidos havia.
+     */
+    static int consolidar(List<CotacaoCafeDTO> dados, Map<String, Map<LocalDate, Double>> destino) {
+        int totalRegistros = 0;
+
+        for (CotacaoCafeDTO cotacaoDTO : dados) {
+            if (cotacaoDTO.mesAno() == null || cotacaoDTO.valor() == null) {
+                continue; 
+            }
+
+            LocalDate dataReferencia = Utils.parseMesAno(cotacaoDTO.mesAno());
+            destino.computeIfAbsent(tipo(cotacaoDTO), t -> new LinkedHashMap<>())
+                   .put(dataReferencia, cotacaoDTO.valor());
+
+            totalRegistros++;
+        }
+
+        return totalRegistros;
+    }
+
+    /** Tipo do registro; os arquivos antigos não trazem o tipo e são de Café Robusta. */
+    static String tipo(CotacaoCafeDTO cotacaoDTO) {
+        return cotacaoDTO.tipo() == null || cotacaoDTO.tipo().isBlank() ? TIPO_ROBUSTA : cotacaoDTO.tipo();
+    }
+
+    /** Retorna quantos registros válidos o bloco tinha; os efetivamente gravados vão para o progresso. */
+    private int gravarEmLote(List<CotacaoCafeDTO> dados, ImportacaoProgresso progresso, CotacaoResumoService.Afetados afetados) {
+        Map<String, Map<LocalDate, Double>> valores = new LinkedHashMap<>();
+        int totalRegistros = consolidar(dados, valores);
+
+        progresso.adicionarGravados(gravarValores(valores, afetados).size());
+
+        return totalRegistros;
+    }
+
+    /** true se um arquivo com este conteúdo já foi importado com sucesso para a origem CEPEA. */
+    public boolean isJaImportado(String hash) {
+        return ImpHistoricoSelect.buscarConcluidoPorHash(dao, hash, ORIGEM_CEPEA) != null;
+    }
+
+    /**
+     * Grava os valores de cada tipo (série origem CEPEA + tipo) em lote com
+     * INSERT ... ON CONFLICT, na transação do chamador. Retorna as cotações gravadas.
+     */
+    private List<CotacaoCafeEntity> gravarValores(Map<String, Map<LocalDate, Double>> valores,
+                                                  CotacaoResumoService.Afetados afetados) {
+        List<CotacaoCafeEntity> lote = new ArrayList<>();
+
+        for (Map.Entry<String, Map<LocalDate, Double>> entry : valores.entrySet()) {
+        	prepararSerie(entry.getKey(), entry.getValue(), lote, afetados);
+        }
+
+        if (lote.isEmpty()) {
+        	return lote;
+        }
+
+        long inicioGravacao = System.nanoTime();
+        dao.executarEmLote(UPSERT_COTACAO, lote, tamanhoLote, CotacaoService::ligarUpsert);
+        metricas.fase(ImportacaoMetricas.FASE_GRAVACAO, System.nanoTime() - inicioGravacao);
+
+        return lote;
+    }
+
+    /**
+     * Carrega numa única consulta as cotações da série (origem, tipo) já existentes
+     * no intervalo de datas dos valores e põe em {@code lote} as que precisam ser gravadas.
+     * A variação é calculada numa passada ordenada por data, a partir da última
+     * cotação da série gravada antes do intervalo; a primeira cotação depois dele também é
+     * recalculada. Cotações cujo valor e variação não mudaram ficam de fora.
+     * As que mudaram de valor são registradas em {@code afetados} (resumos).
+     */
+    private void prepararSerie(String tipo, Map<LocalDate, Double> valores, List<CotacaoCafeEntity> lote,
+                               CotacaoResumoService.Afetados afetados) {
+        if (valores.isEmpty()) {
+        	return;
+        }
+
+        // datas do intervalo em ordem: as que chegaram e as que já existiam entre elas
+        TreeMap<LocalDate, CotacaoCafeEntity> serie = new TreeMap<>();
+        for (LocalDate dataReferencia : valores.keySet()) {
+        	serie.put(dataReferencia, null);
+        }
+
+        LocalDate menorData = serie.firstKey();
+        LocalDate maiorData = serie.lastKey();
+
+        long inicioConsulta = System.nanoTime();
+
+        // as entidades lidas são desanexadas: a gravação é feita pelo upsert, não pelo dirty checking
+        for (CotacaoCafeEntity cotacao : CotacaoSelect.buscarPorPeriodoESerie(dao, menorData, maiorData, ORIGEM_CEPEA, tipo)) {
+        	dao.detach(cotacao);
+        	serie.put(cotacao.getDataReferencia(), cotacao);
+        }
+
+        CotacaoCafeEntity anterior = CotacaoSelect.buscarAnteriorNaSerie(dao, menorData, ORIGEM_CEPEA, tipo);
+        long valorAnterior = anterior != null ? anterior.getValorFixo() : 0;
+        boolean temAnterior = anterior != null;
+
+        metricas.fase(ImportacaoMetricas.FASE_CONSULTA, System.nanoTime() - inicioConsulta);
+
+        for (Map.Entry<LocalDate, CotacaoCafeEntity> entry : serie.entrySet()) {
+        	CotacaoCafeEntity cotacao = entry.getValue();
+        	Double valor = valores.get(entry.getKey());
+        	boolean valorMudou = false;
+
+            if (cotacao == null) {
+            	cotacao = new CotacaoCafeEntity();
+            	cotacao.setDataReferencia(entry.getKey());
+            	cotacao.setTipoCafe(tipo);
+            	cotacao.setValor(valor);
+            	cotacao.setOrigemDado(ORIGEM_CEPEA);
+            	cotacao.setCriadoEm(LocalDate.now());
+            	valorMudou = true;
+
+            } else if (valor != null && cotacao.getValorFixo() != PrecoFixo.deDouble(valor)) {
+            	cotacao.setValor(valor);
+            	cotacao.setCriadoEm(LocalDate.now());
+            	valorMudou = true;
+            }
+
+            Double variacao = temAnterior ? variacao(valorAnterior, cotacao.getValorFixo()) : null;
+            boolean variacaoMudou = !Objects.equals(variacao, cotacao.getVariacao());
+            cotacao.setVariacao(variacao);
+
+            if (valorMudou || variacaoMudou) {
+            	lote.add(cotacao);
+            }
+            if (valorMudou) {
+            	afetados.registrar(cotacao);
+            }
+
+            valorAnterior = cotacao.getValorFixo();
+            temAnterior = true;
+        }
+
+        // linha que chegou atrasada muda a variação da cotação seguinte já gravada
+        inicioConsulta = System.nanoTime();
+        CotacaoCafeEntity seguinte = CotacaoSelect.buscarSeguinteNaSerie(dao, maiorData, ORIGEM_CEPEA, tipo);
+        metricas.fase(ImportacaoMetricas.FASE_CONSULTA, System.nanoTime() - inicioConsulta);
+        if (seguinte != null) {
+        	dao.detach(seguinte);
+        	Double variacao = variacao(valorAnterior, seguinte.getValorFixo());
+        	if (!Objects.equals(variacao, seguinte.getVariacao())) {
+        		seguinte.setVariacao(variacao);
+        		lote.add(seguinte);
+        	}
+        }
+    }
+
+    private void atualizarResumos(CotacaoResumoService.Afetados afetados) {
+        long inicio = System.nanoTime();
+        resumoService.atualizar(afetados);
+        metricas.fase(ImportacaoMetricas.FASE_RESUMO, System.nanoTime() - inicio);
+    }
+
+    private static void ligarUpsert(PreparedStatement ps, CotacaoCafeEntity cotacao) throws SQLException {
+        ps.setObject(1, cotacao.getDataReferencia());
+        ps.setString(2, cotacao.getTipoCafe());
+        ps.setDouble(3, PrecoFixo.paraDouble(cotacao.getValorFixo()));
+        ps.setObject(4, cotacao.getVariacao(), Types.DOUBLE);
+        ps.setString(5, cotacao.getOrigemDado());
+        ps.setObject(6, cotacao.getCriadoEm());
+    }
+
+    /** Variação percentual sobre a cotação anterior, com 4 casas; nula se a anterior for zero. */
+    static Double variacao(long anterior, long atual) {
+        if (anterior == 0) {
+        	return null;
+        }
+        return Math.round((atual - anterior) * 1_000_000.0 / anterior) / 10_000.0;
+    }
+
     public List<CotacaoCafePeriodoDTO> buscarPorPeriodo(LocalDate dataInicio, LocalDate dataFim) {
-        List<CotacaoCafeEntity> cotacaoList = CotacaoSelect.buscarPorPeriodo(dao, dataInicio, dataFim);
+        return buscarPorPeriodo(null, null, dataInicio, dataFim);
+    }
 
-        List<CotacaoCafePeriodoDTO> cotacaDTO = new ArrayList<>();
+    public List<CotacaoCafePeriodoDTO> buscarPorPeriodo(String origem, String tipo, LocalDate dataInicio, LocalDate dataFim) {
+        return serieCache.buscar(origem, tipo, dataInicio, dataFim);
+    }
+
+    /**
+     * Série reduzida a no máximo {@code maxPontos} pontos (ver {@link SerieAgregacao#reduzir}).
+     * Origem/tipo precisam apontar uma série só.
+     */
+    public List<CotacaoCafePeriodoDTO> buscarPorPeriodo(String origem, String tipo, LocalDate dataInicio, LocalDate dataFim,
+                                                        int maxPontos, SerieAgregacao.Metodo metodo) {
+        CotacaoSerieCache.Serie serie = serieUnica(origem, tipo);
+        return SerieAgregacao.reduzir(serie, serie.primeiroIndice(dataInicio), serie.fimExclusivo(dataFim), maxPontos, metodo);
+    }
+
+    /** Janela da série em cache escrita direto num formato de exportação (CSV, colunar ou binário). */
+    public byte[] exportarPorPeriodo(String origem, String tipo, LocalDate dataInicio, LocalDate dataFim,
+                                     SerieFormato.Formato formato) {
+        CotacaoSerieCache.Serie serie = serieCache.serie(origem, tipo);
+        return SerieFormato.escrever(serie, serie.primeiroIndice(dataInicio), serie.fimExclusivo(dataFim), formato);
+    }
+
+    /** OHLC por intervalo; como na redução, origem/tipo precisam apontar uma série só. */
+    public List<CotacaoCafeAgregadoDTO> buscarAgregadoPorPeriodo(String origem, String tipo, LocalDate dataInicio, LocalDate dataFim,
+                                                                 SerieAgregacao.Intervalo intervalo) {
+        CotacaoSerieCache.Serie serie = serieUnica(origem, tipo);
+        return SerieAgregacao.agregar(serie, serie.primeiroIndice(dataInicio), serie.fimExclusivo(dataFim), intervalo);
+    }
 
-        for (CotacaoCafeEntity cotacaoEntity : cotacaoList) {
-            
-        	cotacaDTO.add(new CotacaoCafePeriodoDTO(
-        			cotacaoEntity.getDataReferencia(),
-        			Utils.round(cotacaoEntity.getValor(), 2)
-        			
-            ));
+    /** Série da chave; IllegalArgumentException se ela juntar mais de um par (origem, tipo). */
+    private CotacaoSerieCache.Serie serieUnica(String origem, String tipo) {
+        int pares = serieCache.pares(origem, tipo);
+        if (pares > 1) {
+            throw new IllegalArgumentException("origem=" + origem + ", tipo=" + tipo + " abrange " + pares
+                    + " séries; informe origem e tipo");
         }
+        return serieCache.serie(origem, tipo);
+    }
 
-        return cotacaDTO;
+    public CotacaoCafePaginaDTO buscarPaginaPorPeriodo(String origem, String tipo, LocalDate dataInicio, LocalDate dataFim,
+                                                       LocalDate depoisDe, int limite) {
+        return serieCache.buscarPagina(origem, tipo, dataInicio, dataFim, depoisDe, limite);
+    }
+
+    /**
+     * Entrega o período ao consumidor linha a linha, direto do banco
+     * (cursor com fetch size), sem materializar a lista.
+     */
+    @Transactional(readOnly = true)
+    public long percorrerPorPeriodo(String origem, String tipo, LocalDate dataInicio, LocalDate dataFim,
+                                    Consumer<CotacaoCafePeriodoDTO> consumidor) {
+        long total = 0;
+        try (Stream<CotacaoCafePeriodoDTO> cotacoes =
+                     CotacaoSelect.streamPorPeriodo(dao, origem, tipo, dataInicio, dataFim, tamanhoFetch)) {
+            for (Iterator<CotacaoCafePeriodoDTO> it = cotacoes.iterator(); it.hasNext(); total++) {
+                consumidor.accept(it.next());
+            }
+        }
+        return total;
     }
     
     private void historicoSave(ImpHistoricoEntity historico) {
     	
-    	dao.insert(historico);
-    	
-    }
-    
-    private void salvar(CotacaoCafeEntity cotacaoEntity) {
-    	if (cotacaoEntity.getId() == null) {
-    		dao.insert(cotacaoEntity);
+    	if (historico.getId() == null) {
+    		dao.insert(historico);
     	} else {
-    		dao.update(cotacaoEntity);
+    		dao.update(historico);
     	}
     	
     }
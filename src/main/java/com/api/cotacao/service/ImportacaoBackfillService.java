@@ -0,0 +1,333 @@
+package com.api.cotacao.service;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.api.cotacao.DTO.CotacaoCafeDTO;
+import com.api.cotacao.cache.CotacaoSerieCache;
+import com.api.cotacao.db.DAOController;
+import com.api.cotacao.entity.CotacaoCafeResumoEntity;
+import com.api.cotacao.entity.ImpHistoricoEntity;
+import com.api.cotacao.select.ImpHistoricoSelect;
+import com.api.cotacao.utils.ContadorInputStream;
+import com.api.cotacao.utils.FileUtils;
+import com.api.cotacao.utils.PrecoFixo;
+import com.api.cotacao.utils.Utils;
+
+/**
+ * Carga de histórico grande (backfill) para janelas de manutenção: os
+ * registros do JSON vão por COPY ... FROM STDIN para uma tabela temporária
+ * e de lá entram em cotacao_cafe com um único INSERT ... ON CONFLICT, que
+ * já grava a variação. Os resumos dos anos tocados são recalculados em SQL,
+ * sem carregar entidades, sob a mesma trava por série da importação comum
+ * ({@link CotacaoResumoService#travarSeries}). Tudo numa transação: ou a carga entra inteira ou nada muda.
+ *
+ * <p>Diferente da importação comum, o tipo vem do registro (Café Robusta
+ * quando ausente) e a origem é informada na chamada, então o histórico de
+ * cada fonte é carregado por um arquivo. A variação é calculada por (origem, tipo).
+ */
+@Service
+public class ImportacaoBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacaoBackfillService.class);
+
+    private static final String CRIAR_CARGA = """
+            CREATE TEMP TABLE cotacao_cafe_carga (
+                seq         BIGINT NOT NULL,
+                data        DATE NOT NULL,
+                tipo        VARCHAR(100) NOT NULL,
+                valor_fixo  BIGINT NOT NULL
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_CARGA =
+            "COPY cotacao_cafe_carga (seq, data, tipo, valor_fixo) FROM STDIN (FORMAT csv)";
+
+    /*
+     * Upsert único: a série de cada tipo da carga (linhas da carga sobre as já
+     * gravadas) tem a variação calculada por janela, com a mesma conta de
+     * CotacaoService.variacao em float8 (Math.round = floor(x + 0.5)). Só vão
+     * para o INSERT as linhas novas, as de valor alterado e as que só mudaram
+     * de variação (ex.: a seguinte a uma data que chegou atrasada); criado_em
+     * muda apenas quando o valor muda. A última linha de cada (tipo, data) no
+     * arquivo prevalece, como em CotacaoService.consolidar.
+     */
+    private static final String MERGE_COTACAO = """
+            WITH carga AS (
+                SELECT DISTINCT ON (tipo, data) data, tipo, valor_fixo
+                  FROM cotacao_cafe_carga
+                 ORDER BY tipo, data, seq DESC
+            ), existentes AS (
+                SELECT cotcaf_data_referencia AS data, cotcaf_tipo AS tipo, cotcaf_variacao AS variacao,
+                       cotcaf_criado_em AS criado_em, round(cotcaf_valor * 10000)::bigint AS valor_fixo
+                  FROM cotacao_cafe
+                 WHERE cotcaf_origem = ?
+                   AND cotcaf_tipo IN (SELECT DISTINCT tipo FROM carga)
+            ), serie AS (
+                SELECT COALESCE(n.data, e.data) AS data,
+                       COALESCE(n.tipo, e.tipo) AS tipo,
+                       COALESCE(n.valor_fixo, e.valor_fixo) AS fixo,
+                       e.valor_fixo AS fixo_atual,
+                       e.variacao AS variacao_atual,
+                       e.criado_em,
+                       e.tipo IS NOT NULL AS existe
+                  FROM carga n
+                  FULL JOIN existentes e ON e.tipo = n.tipo AND e.data = n.data
+            ), calculada AS (
+                SELECT s.*,
+                       CASE WHEN anterior IS NULL OR anterior = 0 THEN NULL
+                            ELSE floor((fixo - anterior) * 1000000.0::float8 / anterior + 0.5) / 10000
+                       END AS variacao
+                  FROM (SELECT serie.*, lag(fixo) OVER (PARTITION BY tipo ORDER BY data) AS anterior
+                          FROM serie) s
+            )
+            INSERT INTO cotacao_cafe (cotcaf_data_referencia, cotcaf_tipo, cotcaf_valor, cotcaf_variacao,
+                                      cotcaf_origem, cotcaf_criado_em)
+            SELECT data, tipo, fixo::float8 / 10000, variacao, ?,
+                   CASE WHEN existe AND fixo = fixo_atual THEN criado_em ELSE CURRENT_DATE END
+              FROM calculada
+             WHERE NOT existe
+                OR fixo <> fixo_atual
+                OR variacao IS DISTINCT FROM variacao_atual
+            ON CONFLICT (cotcaf_origem, cotcaf_tipo, cotcaf_data_referencia) DO UPDATE SET
+                cotcaf_valor = EXCLUDED.cotcaf_valor,
+                cotcaf_variacao = EXCLUDED.cotcaf_variacao,
+                cotcaf_criado_em = EXCLUDED.cotcaf_criado_em
+            """;
+
+    // resumos mensais e anuais de cada (tipo, ano) da carga, como CotacaoResumoService.Acumulador
+    private static final String ATUALIZAR_RESUMOS = """
+            INSERT INTO cotacao_cafe_resumo (cotres_intervalo, cotres_data_inicio, cotres_tipo, cotres_origem,
+                                             cotres_abertura, cotres_maxima, cotres_minima, cotres_fechamento,
+                                             cotres_media, cotres_pontos, cotres_atualizado_em)
+            SELECT i.intervalo, date_trunc(i.unidade, c.data)::date, c.tipo, c.origem,
+                   (array_agg(c.fixo ORDER BY c.data))[1], max(c.fixo), min(c.fixo),
+                   (array_agg(c.fixo ORDER BY c.data DESC))[1],
+                   floor(sum(c.fixo)::float8 / count(*) + 0.5)::bigint, count(*), localtimestamp
+              FROM (SELECT cotcaf_data_referencia::timestamp AS data, cotcaf_tipo AS tipo, cotcaf_origem AS origem,
+                           round(cotcaf_valor * 10000)::bigint AS fixo
+                      FROM cotacao_cafe
+                     WHERE cotcaf_origem = ?
+                       AND (cotcaf_tipo, date_trunc('year', cotcaf_data_referencia::timestamp)) IN
+                           (SELECT DISTINCT tipo, date_trunc('year', data::timestamp) FROM cotacao_cafe_carga)) c
+             CROSS JOIN (VALUES (?, 'month'), (?, 'year')) AS i (intervalo, unidade)
+             GROUP BY 1, 2, 3, 4
+            ON CONFLICT (cotres_intervalo, cotres_origem, cotres_tipo, cotres_data_inicio) DO UPDATE SET
+                cotres_abertura = EXCLUDED.cotres_abertura,
+                cotres_maxima = EXCLUDED.cotres_maxima,
+                cotres_minima = EXCLUDED.cotres_minima,
+                cotres_fechamento = EXCLUDED.cotres_fechamento,
+                cotres_media = EXCLUDED.cotres_media,
+                cotres_pontos = EXCLUDED.cotres_pontos,
+                cotres_atualizado_em = EXCLUDED.cotres_atualizado_em
+            """;
+
+    @Autowired
+    private DAOController dao;
+
+    @Autowired
+    private CotacaoSerieCache serieCache;
+
+    @Autowired
+    private ImportacaoMetricas metricas;
+
+    @Value("${app.import.chunk-size:5000}")
+    private int tamanhoChunk;
+
+    /**
+     * Carrega o arquivo inteiro com a origem informada. No histórico,
+     * tempoParseMs é a fase de leitura + COPY (que correm juntas) e o restante
+     * de tempoExecucaoMs é o merge, a variação e os resumos.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void importar(String pathJson, String origem, ImpHistoricoEntity historico, ImportacaoProgresso progresso) throws Exception {
+        long start = System.currentTimeMillis();
+        long alocadosInicio = Utils.bytesAlocadosThread();
+        progresso.iniciar();
+
+        if (historico.getIniciadoEm() == null) {
+            historico.setIniciadoEm(LocalDateTime.now());
+        }
+
+        Path path = Path.of(pathJson);
+        String nomeArquivo = path.getFileName().toString();
+        String hash = FileUtils.hashSha256(path);
+
+        historico.setNomeArquivo(nomeArquivo);
+        historico.setHashConteudo(hash);
+        historico.setOrigem(origem);
+
+        if (ImpHistoricoSelect.buscarConcluidoPorHash(dao, hash, origem) != null) {
+            log.info("Backfill de {} ignorado: conteúdo (sha256={}) já importado para a origem {}.", nomeArquivo, hash, origem);
+            concluir(historico, ImpHistoricoEntity.STATUS_IGNORADO, start, 0L, 0L);
+            return;
+        }
+
+        long[] totais = dao.naConexao(conexao -> {
+            try {
+                return carregar(conexao, path, origem, progresso);
+            } catch (SQLException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException("Falha na carga de " + nomeArquivo + ": " + e.getMessage(), e);
+            }
+        });
+
+        long lidos = totais[0];
+        long gravados = totais[1];
+        progresso.adicionarGravados(gravados);
+
+        historico.setTempoParseMs(totais[2]);
+        historico.setBytesAlocados(Utils.bytesAlocadosDesde(alocadosInicio));
+        concluir(historico, ImpHistoricoEntity.STATUS_CONCLUIDO, start, lidos, gravados);
+
+        metricas.concluidaAposCommit(ImportacaoMetricas.MODO_BACKFILL, historico.getTempoExecucaoMs(), lidos, gravados);
+
+        serieCache.invalidarAposCommit();
+
+        log.info("Backfill de {} concluído: origem={}, {} registros lidos, {} gravados em {} ms (carga {} ms)",
+                nomeArquivo, origem, lidos, gravados, historico.getTempoExecucaoMs(), totais[2]);
+    }
+
+    /** Retorna {lidos, gravados, ms de leitura + COPY}. */
+    private long[] carregar(Connection conexao, Path path, String origem, ImportacaoProgresso progresso) throws Exception {
+        long inicio = System.currentTimeMillis();
+
+        try (Statement st = conexao.createStatement()) {
+            st.execute(CRIAR_CARGA);
+        }
+
+        CopyIn copia = conexao.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_CARGA);
+        long lidos;
+        try {
+            lidos = copiar(copia, path, progresso);
+        } finally {
+            if (copia.isActive()) {
+                copia.cancelCopy();
+            }
+        }
+        long tempoCarga = System.currentTimeMillis() - inicio;
+
+        long inicioMerge = System.nanoTime();
+        try (Statement st = conexao.createStatement()) {
+            // sem estatísticas o planejador supõe uma tabela temporária pequena
+            st.execute("ANALYZE cotacao_cafe_carga");
+        }
+
+        int gravados;
+        try (PreparedStatement ps = conexao.prepareStatement(MERGE_COTACAO)) {
+            ps.setString(1, origem);
+            ps.setString(2, origem);
+            gravados = ps.executeUpdate();
+        }
+        try (Statement st = conexao.createStatement()) {
+            // a carga pode ter mudado a tabela inteira; com estatísticas velhas o
+            // planejador subestima cotacao_cafe e a consulta dos resumos degenera
+            st.execute("ANALYZE cotacao_cafe");
+        }
+        metricas.fase(ImportacaoMetricas.FASE_GRAVACAO, System.nanoTime() - inicioMerge);
+
+        long inicioResumo = System.nanoTime();
+        List<String> chaves = new ArrayList<>();
+        try (Statement st = conexao.createStatement();
+             ResultSet rs = st.executeQuery("SELECT DISTINCT tipo FROM cotacao_cafe_carga")) {
+            while (rs.next()) {
+                chaves.add(CotacaoResumoService.chaveTrava(origem, rs.getString(1)));
+            }
+        }
+        CotacaoResumoService.travarSeries(conexao, chaves);
+
+        try (PreparedStatement ps = conexao.prepareStatement(ATUALIZAR_RESUMOS)) {
+            ps.setString(1, origem);
+            ps.setString(2, CotacaoCafeResumoEntity.INTERVALO_MENSAL);
+            ps.setString(3, CotacaoCafeResumoEntity.INTERVALO_ANUAL);
+            ps.executeUpdate();
+        }
+        metricas.fase(ImportacaoMetricas.FASE_RESUMO, System.nanoTime() - inicioResumo);
+
+        return new long[] {lidos, gravados, tempoCarga};
+    }
+
+    /** Envia os registros válidos em CSV, um bloco por escrita no COPY. Retorna quantos foram enviados. */
+    private long copiar(CopyIn copia, Path path, ImportacaoProgresso progresso) throws Exception {
+        long[] seq = {0};
+        long[] fimDoBloco = {System.nanoTime()};
+
+        try (InputStream in = new ContadorInputStream(FileUtils.openInputStream(path), progresso::adicionarBytesLidos)) {
+            Utils.streamJsonList(in, CotacaoCafeDTO.class, tamanhoChunk, chunk -> {
+                metricas.fase(ImportacaoMetricas.FASE_LEITURA, System.nanoTime() - fimDoBloco[0]);
+
+                long inicioEscrita = System.nanoTime();
+                byte[] bloco = csv(chunk, seq);
+                try {
+                    copia.writeToCopy(bloco, 0, bloco.length);
+                } catch (SQLException e) {
+                    throw new IllegalStateException("COPY interrompido: " + e.getMessage(), e);
+                }
+                metricas.fase(ImportacaoMetricas.FASE_GRAVACAO, System.nanoTime() - inicioEscrita);
+
+                progresso.adicionarLidos(chunk.size());
+                fimDoBloco[0] = System.nanoTime();
+            });
+        }
+        metricas.fase(ImportacaoMetricas.FASE_LEITURA, System.nanoTime() - fimDoBloco[0]);
+
+        copia.endCopy();
+        return seq[0];
+    }
+
+    private static byte[] csv(List<CotacaoCafeDTO> chunk, long[] seq) {
+        StringBuilder sb = new StringBuilder(chunk.size() * 48);
+
+        for (CotacaoCafeDTO dto : chunk) {
+            if (dto.mesAno() == null || dto.valor() == null) {
+                continue;
+            }
+
+            String tipo = CotacaoService.tipo(dto);
+
+            sb.append(++seq[0]).append(',')
+              .append(Utils.parseMesAno(dto.mesAno())).append(",\"")
+              .append(tipo.replace("\"", "\"\"")).append("\",")
+              .append(PrecoFixo.deDouble(dto.valor())).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void concluir(ImpHistoricoEntity historico, String status, long start, long lidos, long gravados) {
+        long tempoExecucao = System.currentTimeMillis() - start;
+
+        historico.setData(LocalDateTime.now());
+        historico.setTotalRegistro(Math.toIntExact(lidos));
+        historico.setTempoExecucaoMs(tempoExecucao);
+        historico.setRegistrosPorSegundo(tempoExecucao > 0 && lidos > 0 ? lidos * 1000.0 / tempoExecucao : null);
+        historico.setStatus(status);
+        historico.setRegistrosLidos(lidos);
+        historico.setRegistrosGravados(gravados);
+        historico.setFinalizadoEm(LocalDateTime.now());
+
+        if (historico.getId() == null) {
+            dao.insert(historico);
+        } else {
+            dao.update(historico);
+        }
+    }
+}
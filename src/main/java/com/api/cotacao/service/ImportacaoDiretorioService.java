@@ -0,0 +1,249 @@
+package com.api.cotacao.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.api.cotacao.DTO.CotacaoCafeDTO;
+import com.api.cotacao.entity.ImpHistoricoEntity;
+import com.api.cotacao.utils.FileUtils;
+import com.api.cotacao.utils.Utils;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Importação de um diretório inteiro de arquivos JSON (inclusive dentro de .zip).
+ * Os arquivos são lidos em paralelo, consolidados por tipo/data e gravados
+ * numa única fase de escrita (ver {@link CotacaoService#gravarConsolidado}).
+ * Se um arquivo falha, as leituras ainda em andamento param no próximo bloco
+ * e só então os temporários dos .zip são removidos.
+ */
+@Service
+public class ImportacaoDiretorioService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacaoDiretorioService.class);
+
+    private final CotacaoService cotacaoService;
+    private final ImportacaoMetricas metricas;
+    private final ForkJoinPool pool;
+
+    @Value("${app.import.chunk-size:5000}")
+    private int tamanhoChunk;
+
+    public ImportacaoDiretorioService(CotacaoService cotacaoService,
+                                      ImportacaoMetricas metricas,
+                                      @Value("${app.import.parallelism:0}") int paralelismo) {
+        this.cotacaoService = cotacaoService;
+        this.metricas = metricas;
+        this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Importa todos os .json do diretório (e dos .zip nele). Retorna o histórico de cada arquivo. */
+    public List<ImpHistoricoEntity> importarDiretorio(String pathDir) throws Exception {
+        long start = System.currentTimeMillis();
+
+        Path raiz = Path.of(pathDir);
+        if (!Files.isDirectory(raiz)) {
+            throw new IllegalArgumentException("Diretório não encontrado: " + pathDir);
+        }
+
+        Path tempZip = null;
+        try {
+            List<Path> arquivos = new ArrayList<>(FileUtils.findFilesByExtension(raiz, "json"));
+
+            List<Path> zips = FileUtils.findFilesByExtension(raiz, "zip");
+            if (!zips.isEmpty()) {
+                tempZip = FileUtils.temporaryDir(Path.of(System.getProperty("java.io.tmpdir")), "cotacao-zip-");
+                for (int i = 0; i < zips.size(); i++) {
+                    Path zip = zips.get(i);
+                    FileUtils.unzip(zip, tempZip.resolve(i + "_" + FileUtils.basename(zip)));
+                }
+                arquivos.addAll(FileUtils.findFilesByExtension(tempZip, "json"));
+            }
+
+            // ordem determinística: em datas repetidas, o último arquivo (por nome) prevalece
+            arquivos.sort(Comparator.comparing((Path p) -> FileUtils.filename(p)).thenComparing(Path::toString));
+
+            if (arquivos.isEmpty()) {
+                log.info("Nenhum arquivo JSON encontrado em {}", pathDir);
+                return List.of();
+            }
+
+            AtomicBoolean abortado = new AtomicBoolean();
+            List<Future<ArquivoLido>> tarefas = new ArrayList<>(arquivos.size());
+            for (Path arquivo : arquivos) {
+                tarefas.add(pool.submit(() -> ler(arquivo, abortado)));
+            }
+
+            Map<String, Map<LocalDate, Double>> consolidado = new HashMap<>();
+            // arquivo de onde veio cada valor consolidado, para contar os gravados por arquivo
+            Map<String, Map<LocalDate, ImpHistoricoEntity>> origens = new HashMap<>();
+            List<ImpHistoricoEntity> historicos = new ArrayList<>(arquivos.size());
+            Set<String> hashes = new HashSet<>();
+            long lidos = 0;
+
+            boolean todosLidos = false;
+            try {
+                for (Future<ArquivoLido> tarefa : tarefas) {
+                    ArquivoLido lido = aguardar(tarefa);
+
+                    // já importado antes, ou cópia de outro arquivo deste mesmo diretório
+                    boolean ignorado = lido.ignorado() || !hashes.add(lido.hash());
+                    ImpHistoricoEntity historico = historico(lido, ignorado);
+                    if (!ignorado) {
+                        lido.valores().forEach((tipo, valores) -> {
+                            consolidado.computeIfAbsent(tipo, t -> new HashMap<>()).putAll(valores);
+                            Map<LocalDate, ImpHistoricoEntity> origensTipo = origens.computeIfAbsent(tipo, t -> new HashMap<>());
+                            valores.keySet().forEach(data -> origensTipo.put(data, historico));
+                        });
+                        lidos += lido.registros();
+                    }
+                    historicos.add(historico);
+                }
+                todosLidos = true;
+            } finally {
+                if (!todosLidos) {
+                    abortar(tarefas, abortado);
+                }
+            }
+
+            int gravados = cotacaoService.gravarConsolidado(consolidado, origens, historicos);
+
+            long tempo = System.currentTimeMillis() - start;
+            metricas.concluidaAposCommit(ImportacaoMetricas.MODO_DIRETORIO, tempo, lidos, gravados);
+
+            log.info("Importação de diretório {} concluída: {} arquivos, {} cotações em {} ms",
+                    pathDir, arquivos.size(), gravados, tempo);
+
+            return historicos;
+        } finally {
+            if (tempZip != null) {
+                try {
+                    FileUtils.deleteRecursive(tempZip);
+                } catch (IOException e) {
+                    log.warn("Não foi possível remover o diretório temporário {}", tempZip);
+                }
+            }
+        }
+    }
+
+    private ArquivoLido ler(Path arquivo, AtomicBoolean abortado) throws Exception {
+        verificarAbortado(abortado);
+        long start = System.currentTimeMillis();
+        long inicioLeitura = System.nanoTime();
+
+        String hash = FileUtils.hashSha256(arquivo);
+        verificarAbortado(abortado);
+        if (cotacaoService.isJaImportado(hash)) {
+            log.info("Arquivo {} ignorado: conteúdo (sha256={}) já importado.", arquivo, hash);
+            return new ArquivoLido(arquivo, hash, true, Map.of(), 0, System.currentTimeMillis() - start);
+        }
+
+        Map<String, Map<LocalDate, Double>> valores = new LinkedHashMap<>();
+        int[] registros = {0};
+
+        try (InputStream in = FileUtils.openInputStream(arquivo)) {
+            Utils.streamJsonList(in, CotacaoCafeDTO.class, tamanhoChunk, chunk -> {
+                verificarAbortado(abortado);
+                registros[0] += CotacaoService.consolidar(chunk, valores);
+            });
+        }
+
+        metricas.fase(ImportacaoMetricas.FASE_LEITURA, System.nanoTime() - inicioLeitura);
+        return new ArquivoLido(arquivo, hash, false, valores, registros[0], System.currentTimeMillis() - start);
+    }
+
+    private ImpHistoricoEntity historico(ArquivoLido lido, boolean ignorado) {
+        ImpHistoricoEntity historico = new ImpHistoricoEntity(
+                FileUtils.filename(lido.arquivo()),
+                CotacaoService.ORIGEM_CEPEA,
+                LocalDateTime.now(),
+                ignorado ? 0 : lido.registros(),
+                lido.tempoParseMs()
+        );
+        historico.setHashConteudo(lido.hash());
+        historico.setTempoParseMs(lido.tempoParseMs());
+        historico.setRegistrosLidos(ignorado ? 0L : lido.registros());
+        // somado por CotacaoService.gravarConsolidado
+        historico.setRegistrosGravados(0L);
+        historico.setStatus(ignorado ? ImpHistoricoEntity.STATUS_IGNORADO : ImpHistoricoEntity.STATUS_CONCLUIDO);
+        return historico;
+    }
+
+    private static void verificarAbortado(AtomicBoolean abortado) {
+        if (abortado.get()) {
+            throw new CancellationException("Importação do diretório abortada");
+        }
+    }
+
+    /**
+     * Faz as leituras restantes pararem e espera cada uma terminar, para que
+     * nenhuma continue segurando memória ou lendo os temporários depois daqui.
+     * Future.cancel não serve: num ForkJoinTask ele não interrompe a tarefa em
+     * execução e o get() seguinte já não espera por ela.
+     */
+    private static void abortar(List<Future<ArquivoLido>> tarefas, AtomicBoolean abortado) {
+        abortado.set(true);
+
+        boolean interrompido = false;
+        for (Future<ArquivoLido> tarefa : tarefas) {
+            while (true) {
+                try {
+                    tarefa.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrompido = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+        if (interrompido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ArquivoLido aguardar(Future<ArquivoLido> tarefa) throws Exception {
+        try {
+            return tarefa.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private record ArquivoLido(Path arquivo,
+                               String hash,
+                               boolean ignorado,
+                               Map<String, Map<LocalDate, Double>> valores,
+                               int registros,
+                               long tempoParseMs) {}
+}
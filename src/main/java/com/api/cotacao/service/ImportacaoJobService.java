@@ -0,0 +1,225 @@
+package com.api.cotacao.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.api.cotacao.DTO.ImportacaoStatusDTO;
+import com.api.cotacao.db.DAOController;
+import com.api.cotacao.entity.ImpHistoricoEntity;
+import com.api.cotacao.select.ImpHistoricoSelect;
+import com.api.cotacao.utils.FileUtils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Importações assíncronas: o job é registrado em imp_historico (PENDENTE),
+ * roda num pool limitado e o progresso fica em memória enquanto executa.
+ * Terminado o job, o estado final é o que ficou persistido no histórico.
+ * Fila e progresso não sobrevivem a um reinício: na subida, os jobs que
+ * ficaram PENDENTE ou PROCESSANDO são marcados ERRO (supõe uma única
+ * instância processando importações).
+ */
+@Service
+public class ImportacaoJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacaoJobService.class);
+
+    private final CotacaoService cotacaoService;
+    private final ImportacaoBackfillService backfillService;
+    private final DAOController dao;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<Long, Job> jobsAtivos = new ConcurrentHashMap<>();
+
+    public ImportacaoJobService(CotacaoService cotacaoService,
+                                ImportacaoBackfillService backfillService,
+                                DAOController dao,
+                                @Value("${app.import.async.threads:2}") int threads,
+                                @Value("${app.import.async.queue-size:16}") int tamanhoFila,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean threadsVirtuais) {
+        this.cotacaoService = cotacaoService;
+        this.backfillService = backfillService;
+        this.dao = dao;
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(tamanhoFila),
+                threadFactory("importacao-", threadsVirtuais),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * A importação roda numa transação só, então o job interrompido não
+     * deixou cotações gravadas: basta marcá-lo ERRO para que possa ser reenviado.
+     */
+    @PostConstruct
+    public void recuperarInterrompidas() {
+        List<ImpHistoricoEntity> interrompidas = ImpHistoricoSelect.buscarPorStatus(dao,
+                ImpHistoricoEntity.STATUS_PENDENTE, ImpHistoricoEntity.STATUS_PROCESSANDO);
+
+        for (ImpHistoricoEntity historico : interrompidas) {
+            log.warn("Importação {} ({}) estava {} quando a aplicação parou; marcada como ERRO.",
+                    historico.getId(), historico.getNomeArquivo(), historico.getStatus());
+            marcarErro(historico, "Interrompida: a aplicação reiniciou durante a importação.");
+        }
+    }
+
+    /**
+     * Registra o job e o coloca na fila. Lança RejectedExecutionException se a
+     * fila estiver cheia (o histórico fica com status ERRO).
+     */
+    public ImportacaoStatusDTO submeter(String pathJson) throws IOException {
+        return submeter(pathJson, CotacaoService.ORIGEM_CEPEA,
+                (historico, progresso) -> cotacaoService.importarDeJson(pathJson, historico, progresso));
+    }
+
+    /** Como {@link #submeter(String)}, mas pela carga COPY de {@link ImportacaoBackfillService}. */
+    public ImportacaoStatusDTO submeterBackfill(String pathJson, String origem) throws IOException {
+        return submeter(pathJson, origem,
+                (historico, progresso) -> backfillService.importar(pathJson, origem, historico, progresso));
+    }
+
+    private ImportacaoStatusDTO submeter(String pathJson, String origem, Importacao importacao) throws IOException {
+        Path path = Path.of(pathJson);
+        FileUtils.ensureReadable(path);
+
+        ImpHistoricoEntity historico = new ImpHistoricoEntity(
+                FileUtils.filename(path),
+                origem,
+                LocalDateTime.now(),
+                0,
+                0L
+        );
+        historico.setStatus(ImpHistoricoEntity.STATUS_PENDENTE);
+        historico = dao.insert(historico);
+
+        Job job = new Job(historico, new ImportacaoProgresso(FileUtils.size(path)));
+        jobsAtivos.put(historico.getId(), job);
+
+        try {
+            executor.execute(() -> executar(pathJson, job, importacao));
+        } catch (RejectedExecutionException e) {
+            jobsAtivos.remove(historico.getId());
+            marcarErro(historico, "Fila de importação cheia.");
+            throw e;
+        }
+
+        log.info("Importação assíncrona {} enfileirada: {}", historico.getId(), pathJson);
+        return status(historico.getId());
+    }
+
+    /** Estado do job, ou null se o id não existir. */
+    public ImportacaoStatusDTO status(Long id) {
+        Job job = jobsAtivos.get(id);
+        if (job != null) {
+            ImportacaoProgresso progresso = job.progresso();
+            return new ImportacaoStatusDTO(
+                    id,
+                    job.historico().getNomeArquivo(),
+                    progresso.isIniciado() ? ImpHistoricoEntity.STATUS_PROCESSANDO : ImpHistoricoEntity.STATUS_PENDENTE,
+                    progresso.getRegistrosLidos(),
+                    progresso.getRegistrosGravados(),
+                    progresso.getRegistrosPorSegundo(),
+                    progresso.getEtaSegundos(),
+                    progresso.getDecorridoMs(),
+                    null
+            );
+        }
+
+        ImpHistoricoEntity historico = ImpHistoricoSelect.buscarPorId(dao, id);
+        if (historico == null) {
+            return null;
+        }
+
+        return new ImportacaoStatusDTO(
+                historico.getId(),
+                historico.getNomeArquivo(),
+                historico.getStatus(),
+                historico.getRegistrosLidos() == null ? 0 : historico.getRegistrosLidos(),
+                historico.getRegistrosGravados() == null ? historico.getTotalRegistro() : historico.getRegistrosGravados(),
+                historico.getRegistrosPorSegundo(),
+                ImpHistoricoEntity.STATUS_CONCLUIDO.equals(historico.getStatus()) ? 0L : null,
+                historico.getTempoExecucaoMs(),
+                historico.getMensagemErro()
+        );
+    }
+
+    private void executar(String pathJson, Job job, Importacao importacao) {
+        ImpHistoricoEntity historico = job.historico();
+        try {
+            historico.setStatus(ImpHistoricoEntity.STATUS_PROCESSANDO);
+            historico.setIniciadoEm(LocalDateTime.now());
+            historico = dao.update(historico);
+
+            importacao.executar(historico, job.progresso());
+
+            log.info("Importação assíncrona {} concluída: {} registros",
+                    historico.getId(), job.progresso().getRegistrosGravados());
+        } catch (Exception e) {
+            log.error("Erro na importação assíncrona {}: {}", historico.getId(), pathJson, e);
+            historico.setRegistrosLidos(job.progresso().getRegistrosLidos());
+            historico.setTempoExecucaoMs(job.progresso().getDecorridoMs());
+            marcarErro(historico, e.getMessage());
+        } finally {
+            jobsAtivos.remove(historico.getId());
+        }
+    }
+
+    private void marcarErro(ImpHistoricoEntity historico, String mensagem) {
+        historico.setStatus(ImpHistoricoEntity.STATUS_ERRO);
+        historico.setRegistrosGravados(0L);
+        historico.setFinalizadoEm(LocalDateTime.now());
+        historico.setMensagemErro(mensagem == null ? null
+                : mensagem.substring(0, Math.min(mensagem.length(), 1000)));
+        try {
+            dao.update(historico);
+        } catch (Exception e) {
+            log.error("Não foi possível gravar o erro da importação {}", historico.getId(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Com threads virtuais o pool continua limitado (threads/queue-size valem
+     * igual): só muda o que fica bloqueado enquanto o job espera o banco.
+     */
+    private static ThreadFactory threadFactory(String prefixo, boolean virtuais) {
+        if (virtuais) {
+            return Thread.ofVirtual().name(prefixo, 1).factory();
+        }
+
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefixo + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @FunctionalInterface
+    private interface Importacao {
+        void executar(ImpHistoricoEntity historico, ImportacaoProgresso progresso) throws Exception;
+    }
+
+    private record Job(ImpHistoricoEntity historico, ImportacaoProgresso progresso) {}
+}
@@ -0,0 +1,115 @@
+package com.api.cotacao.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Métricas da importação: tempo por fase (leitura/parse, consulta das
+ * cotações existentes, gravação, resumos), tempo total, registros lidos e
+ * gravados (a taxa por segundo sai de rate() sobre os contadores) e a
+ * vazão de cada importação, a mesma gravada em imp_historico.
+ */
+@Component
+public class ImportacaoMetricas {
+
+    public static final String FASE_LEITURA = "leitura";
+    public static final String FASE_CONSULTA = "consulta";
+    public static final String FASE_GRAVACAO = "gravacao";
+    public static final String FASE_RESUMO = "resumo";
+
+    public static final String MODO_ARQUIVO = "arquivo";
+    public static final String MODO_DIRETORIO = "diretorio";
+    public static final String MODO_BACKFILL = "backfill";
+
+    private final MeterRegistry registry;
+
+    private final Timer leitura;
+    private final Timer consulta;
+    private final Timer gravacao;
+    private final Timer resumo;
+
+    private final Counter lidos;
+    private final Counter gravados;
+    private final DistributionSummary vazao;
+
+    public ImportacaoMetricas(MeterRegistry registry) {
+        this.registry = registry;
+
+        this.leitura = fase(FASE_LEITURA);
+        this.consulta = fase(FASE_CONSULTA);
+        this.gravacao = fase(FASE_GRAVACAO);
+        this.resumo = fase(FASE_RESUMO);
+
+        this.lidos = Counter.builder("cotacao.importacao.registros")
+                .description("Registros das importações, por tipo")
+                .tag("tipo", "lidos")
+                .register(registry);
+        this.gravados = Counter.builder("cotacao.importacao.registros")
+                .description("Registros das importações, por tipo")
+                .tag("tipo", "gravados")
+                .register(registry);
+        this.vazao = DistributionSummary.builder("cotacao.importacao.vazao")
+                .description("Registros lidos por segundo em cada importação")
+                .register(registry);
+    }
+
+    /** Soma {@code nanos} à fase; chamado por bloco, então a contagem é de blocos, não de arquivos. */
+    public void fase(String fase, long nanos) {
+        Timer timer = switch (fase) {
+            case FASE_LEITURA -> leitura;
+            case FASE_CONSULTA -> consulta;
+            case FASE_GRAVACAO -> gravacao;
+            case FASE_RESUMO -> resumo;
+            default -> throw new IllegalArgumentException("Fase de importação desconhecida: " + fase);
+        };
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registra a importação quando a transação corrente confirmar (com
+     * rollback ela não conta); sem transação ativa, registra na hora.
+     */
+    public void concluidaAposCommit(String modo, long tempoMs, long registrosLidos, long registrosGravados) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            concluida(modo, tempoMs, registrosLidos, registrosGravados);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                concluida(modo, tempoMs, registrosLidos, registrosGravados);
+            }
+        });
+    }
+
+    public void concluida(String modo, long tempoMs, long registrosLidos, long registrosGravados) {
+        Timer.builder("cotacao.importacao")
+                .description("Tempo total de cada importação")
+                .tag("modo", modo)
+                .register(registry)
+                .record(tempoMs, TimeUnit.MILLISECONDS);
+
+        lidos.increment(registrosLidos);
+        gravados.increment(registrosGravados);
+
+        if (tempoMs > 0) {
+            vazao.record(registrosLidos * 1000.0 / tempoMs);
+        }
+    }
+
+    private Timer fase(String fase) {
+        return Timer.builder("cotacao.importacao.fase")
+                .description("Tempo da importação por fase")
+                .tag("fase", fase)
+                .register(registry);
+    }
+}
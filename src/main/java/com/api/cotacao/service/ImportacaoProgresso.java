@@ -0,0 +1,78 @@
+package com.api.cotacao.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progresso em memória de uma importação em andamento.
+ * O ETA é estimado pela fração de bytes do arquivo já consumida pelo parser,
+ * já que o total de registros só é conhecido no fim do streaming.
+ */
+public class ImportacaoProgresso {
+
+    private final long totalBytes;
+    private final AtomicLong bytesLidos = new AtomicLong();
+    private final AtomicLong registrosLidos = new AtomicLong();
+    private final AtomicLong registrosGravados = new AtomicLong();
+
+    // nanoTime() pode valer qualquer long, inclusive 0: o início é marcado à parte;
+    // a escrita volátil de iniciado publica inicioNanos para quem ler iniciado == true
+    private long inicioNanos;
+    private volatile boolean iniciado;
+
+    public ImportacaoProgresso(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public void iniciar() {
+        inicioNanos = System.nanoTime();
+        iniciado = true;
+    }
+
+    public boolean isIniciado() {
+        return iniciado;
+    }
+
+    public void adicionarBytesLidos(long bytes) {
+        bytesLidos.addAndGet(bytes);
+    }
+
+    public void adicionarLidos(long registros) {
+        registrosLidos.addAndGet(registros);
+    }
+
+    public void adicionarGravados(long registros) {
+        registrosGravados.addAndGet(registros);
+    }
+
+    public long getRegistrosLidos() {
+        return registrosLidos.get();
+    }
+
+    public long getRegistrosGravados() {
+        return registrosGravados.get();
+    }
+
+    public long getDecorridoMs() {
+        return isIniciado() ? (System.nanoTime() - inicioNanos) / 1_000_000 : 0;
+    }
+
+    public Double getRegistrosPorSegundo() {
+        long decorrido = getDecorridoMs();
+        if (decorrido <= 0) {
+            return null;
+        }
+        return registrosLidos.get() * 1000.0 / decorrido;
+    }
+
+    /** Segundos restantes estimados, ou null enquanto não houver base para estimar. */
+    public Long getEtaSegundos() {
+        long lidos = bytesLidos.get();
+        long decorrido = getDecorridoMs();
+        if (lidos <= 0 || totalBytes <= 0 || decorrido <= 0) {
+            return null;
+        }
+
+        long restantes = Math.max(totalBytes - lidos, 0);
+        return (long) Math.ceil(decorrido * ((double) restantes / lidos) / 1000.0);
+    }
+}
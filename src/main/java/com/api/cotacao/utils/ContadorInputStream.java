@@ -0,0 +1,47 @@
+package com.api.cotacao.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * InputStream que avisa quantos bytes foram lidos a cada leitura
+ * (usado para estimar o progresso de importações).
+ */
+public class ContadorInputStream extends FilterInputStream {
+
+    private final LongConsumer contador;
+
+    public ContadorInputStream(InputStream in, LongConsumer contador) {
+        super(in);
+        this.contador = contador;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            contador.accept(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            contador.accept(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            contador.accept(skipped);
+        }
+        return skipped;
+    }
+}
@@ -0,0 +1,125 @@
+package com.api.cotacao.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Preço em ponto fixo: long em centésimos de centavo (4 casas decimais).
+ * Evita Double/BigDecimal por linha no caminho de leitura.
+ */
+public final class PrecoFixo {
+
+    public static final int ESCALA = 4;
+    public static final long UNIDADE = 10_000L;
+
+    private PrecoFixo() {}
+
+    /**
+     * Arredonda na 4ª casa (HALF_UP, simétrico: {@code deDouble(-v) == -deDouble(v)}).
+     * NaN, infinito ou valor fora da faixa do long lançam ArithmeticException
+     * em vez de saturar em silêncio.
+     */
+    public static long deDouble(double valor) {
+        double escalado = valor * UNIDADE;
+        if (!(Math.abs(escalado) < 0x1p63)) {
+            throw new ArithmeticException("Preço fora da faixa do ponto fixo: " + valor);
+        }
+        double modulo = Math.abs(escalado);
+        long arredondado = Math.round(modulo);
+        // meio exato no decimal (12.34565) pode virar 123456.4999... no produto binário:
+        // só nesse caso raro arredonda pela representação decimal do double
+        if (Math.abs(modulo - Math.floor(modulo) - 0.5) < 1e-6) {
+            arredondado = BigDecimal.valueOf(Math.abs(valor)).setScale(ESCALA, RoundingMode.HALF_UP).unscaledValue().longValue();
+        }
+        return escalado < 0 ? -arredondado : arredondado;
+    }
+
+    public static double paraDouble(long fixo) {
+        return (double) fixo / UNIDADE;
+    }
+
+    /** Exato, sem a expansão binária de {@code new BigDecimal(double)}. */
+    public static BigDecimal paraBigDecimal(long fixo) {
+        return BigDecimal.valueOf(fixo, ESCALA);
+    }
+
+    /**
+     * Arredonda para {@code escala} casas (HALF_UP, como {@link Utils#round})
+     * na aritmética de long e só então cria o BigDecimal.
+     * <p>
+     * O arredondamento parte do valor já guardado em 4 casas, não do double da
+     * coluna, e por isso difere do anterior ({@code Utils.round(new BigDecimal(double), 2)})
+     * em dois casos:
+     * <ul>
+     * <li>coluna com mais de 4 casas logo abaixo da metade: 1.23499 é lido como
+     *     1.2350 e sai 1.24 (antes 1.23). Valores gravados pela importação têm
+     *     no máximo 4 casas, então isso só alcança linhas anteriores a ela;</li>
+     * <li>meio exato no decimal cuja expansão binária fica abaixo dele: 1.005
+     *     sai 1.01 (antes 1.00, pela expansão 1.00499...).</li>
+     * </ul>
+     * Fora esses casos o resultado é o mesmo; ver PrecoFixoTest.
+     */
+    public static BigDecimal paraBigDecimal(long fixo, int escala) {
+        if (escala >= ESCALA) {
+            return BigDecimal.valueOf(fixo, ESCALA).setScale(escala);
+        }
+        return BigDecimal.valueOf(arredondar(fixo, escala), escala);
+    }
+
+    /** Valor sem escala com {@code escala} casas (HALF_UP): 12.3456 em escala 2 -> 1235. */
+    public static long arredondar(long fixo, int escala) {
+        if (escala >= ESCALA) {
+            return Math.multiplyExact(fixo, potenciaDe10(escala - ESCALA));
+        }
+
+        // quociente e resto em vez de (fixo + metade) / divisor: não estoura perto dos limites do long
+        long divisor = potenciaDe10(ESCALA - escala);
+        long quociente = fixo / divisor;
+        long resto = fixo % divisor;
+        return Math.abs(resto) >= divisor / 2 ? quociente + Long.signum(fixo) : quociente;
+    }
+
+    /** Mesmo valor de {@code paraBigDecimal(fixo, escala)}, como double. */
+    public static double paraDouble(long fixo, int escala) {
+        return (double) arredondar(fixo, escala) / potenciaDe10(escala);
+    }
+
+    /**
+     * Escreve o texto de {@code paraBigDecimal(fixo, escala).toPlainString()}
+     * em ASCII a partir de {@code pos}, sem criar objetos. Retorna a posição
+     * seguinte; cabem no máximo 21 bytes.
+     */
+    public static int escrever(long fixo, int escala, byte[] destino, int pos) {
+        long valor = arredondar(fixo, escala);
+        if (valor < 0) {
+            destino[pos++] = '-';
+            valor = Math.negateExact(valor);
+        }
+
+        int digitos = 1;
+        for (long v = valor / 10; v > 0; v /= 10) {
+            digitos++;
+        }
+        digitos = Math.max(digitos, escala + 1);
+
+        // de trás para frente: casas decimais, ponto, parte inteira
+        int fim = pos + digitos + (escala > 0 ? 1 : 0);
+        int i = fim;
+        for (int d = 0; d < digitos; d++) {
+            if (d == escala && escala > 0) {
+                destino[--i] = '.';
+            }
+            destino[--i] = (byte) ('0' + valor % 10);
+            valor /= 10;
+        }
+        return fim;
+    }
+
+    private static long potenciaDe10(int expoente) {
+        long resultado = 1;
+        for (int i = 0; i < expoente; i++) {
+            resultado *= 10;
+        }
+        return resultado;
+    }
+}
@@ -2,26 +2,35 @@ package com.api.cotacao.utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.Normalizer;
+import java.time.DateTimeException;
 import java.time.LocalDate;
-import java.time.YearMonth;
+import java.time.Month;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Consumer;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -33,62 +42,195 @@ public final class Utils {
     
     private static final ObjectMapper mapper = new ObjectMapper();
 
-    private static final DateTimeFormatter MES_ANO_FORMATTER =
-            DateTimeFormatter.ofPattern("MM/yyyy", Locale.US);
-    
     private static final DateTimeFormatter ISO_DATE_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd", Locale.US);
-    
-    private static final DateTimeFormatter ANO_MES_FORMATTER =
-            DateTimeFormatter.ofPattern("yyyy/MM", Locale.US);
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
-    
-    private static void validar(String valor) {
+
+    // cache de LocalDate do dia 1 de cada mês, indexado pelo mês compacto
+    private static final int ANO_CACHE_INICIO = 1900;
+    private static final int ANO_CACHE_FIM = 2100;
+    private static final LocalDate[] INICIOS_DE_MES = new LocalDate[(ANO_CACHE_FIM - ANO_CACHE_INICIO + 1) * 12];
+
+    private static void validar(CharSequence valor) {
         if (valor == null) {
             throw new IllegalArgumentException("Parâmetro obrigatório não informado.");
         }
-        if (valor.isBlank()) {
+        if (valor.toString().isBlank()) {
             throw new IllegalArgumentException("Parâmetro obrigatório está em branco.");
         }
     }
 
-    private static String limpar(String valor) {
-            validar(valor);
-
-            String limpo = valor.replaceAll("[^0-9/]", "");
-            validar(limpo);
-
-            if (limpo.length() != 7) {
-                log.error("Data inválida. Formato esperado mm/yyyy ou yyyy/MM, formato recebido = " + valor);
-            }
-
-            int posBarra = limpo.indexOf('/');
-            // aceitando "MM/yyyy" (pos=2) ou "yyyy/MM" (pos=4)
-            if (posBarra != 2 && posBarra != 4) {
-                log.error("Data inválida, formato ja limpo ficou  = " + limpo);
-            }
-
-            return limpo;
-    }
-
     // ==========
     // DATAS
     // ==========
     public static LocalDate parseMesAno(String mesAno) {
-    	YearMonth ym = YearMonth.parse(limpar(mesAno), MES_ANO_FORMATTER);
-    	return ym.atDay(1);
+        return inicioDoMes(parseMesAnoCompacto(mesAno));
     }
     
     public static LocalDate parseAnoMes(String anoMes) {
-        YearMonth ym = YearMonth.parse(limpar(anoMes), ANO_MES_FORMATTER);
         // retorna o primeiro dia daquele ano/mês
-        return ym.atDay(1);
+        return inicioDoMes(parseAnoMesCompacto(anoMes));
     }
     
 
     public static LocalDate parseIsoDate(String isoDate) {
-        return LocalDate.parse(limpar(isoDate), ISO_DATE_FORMATTER);
+        return LocalDate.ofEpochDay(parseIsoDateEpochDay(isoDate));
+    }
+
+    /**
+     * "MM/yyyy" -> mês compacto (ano * 12 + mes - 1), sem criar Strings.
+     * Como no parse anterior, caracteres que não são dígito nem '/' são ignorados.
+     */
+    public static int parseMesAnoCompacto(CharSequence mesAno) {
+        long campos = lerCampos(mesAno, '/', 2, 4, 0);
+        return mesCompacto((int) (campos & 0xFFFF), (int) (campos >>> 16), mesAno);
+    }
+
+    /** "yyyy/MM" -> mês compacto (ano * 12 + mes - 1). */
+    public static int parseAnoMesCompacto(CharSequence anoMes) {
+        long campos = lerCampos(anoMes, '/', 4, 2, 0);
+        return mesCompacto((int) (campos >>> 16), (int) (campos & 0xFFFF), anoMes);
+    }
+
+    /** "yyyy-MM-dd" -> epoch-day. */
+    public static int parseIsoDateEpochDay(CharSequence isoDate) {
+        long campos = lerCampos(isoDate, '-', 4, 2, 2);
+        int ano = (int) (campos >>> 32);
+        int mes = (int) ((campos >>> 16) & 0xFFFF);
+        int dia = (int) (campos & 0xFFFF);
+
+        if (ano < 1 || mes < 1 || mes > 12 || dia < 1 || dia > Month.of(mes).length(Year.isLeap(ano))) {
+            throw dataInvalida(isoDate);
+        }
+        return (int) epochDay(ano, mes, dia);
+    }
+
+    public static int mesCompacto(LocalDate data) {
+        return data.getYear() * 12 + data.getMonthValue() - 1;
+    }
+
+    /** Dia 1 do mês compacto; instâncias dos anos 1900-2100 são reaproveitadas. */
+    public static LocalDate inicioDoMes(int mesCompacto) {
+        int indice = mesCompacto - ANO_CACHE_INICIO * 12;
+        if (indice < 0 || indice >= INICIOS_DE_MES.length) {
+            return LocalDate.of(mesCompacto / 12, mesCompacto % 12 + 1, 1);
+        }
+
+        // LocalDate é imutável: uma corrida aqui só cria uma instância a mais
+        LocalDate data = INICIOS_DE_MES[indice];
+        if (data == null) {
+            data = LocalDate.of(mesCompacto / 12, mesCompacto % 12 + 1, 1);
+            INICIOS_DE_MES[indice] = data;
+        }
+        return data;
+    }
+
+    // ano 0 fica de fora como no formatter "yyyy" (ano da era começa em 1)
+    private static int mesCompacto(int ano, int mes, CharSequence original) {
+        if (ano < 1 || mes < 1 || mes > 12) {
+            throw dataInvalida(original);
+        }
+        return ano * 12 + mes - 1;
+    }
+
+    /**
+     * Lê 2 ou 3 campos numéricos separados por {@code separador}, cada um com o
+     * número exato de dígitos informado ({@code digitos3 == 0}: só dois campos).
+     * Retorna os campos empacotados em 16 bits cada, o primeiro nos bits mais altos.
+     */
+    private static long lerCampos(CharSequence valor, char separador, int digitos1, int digitos2, int digitos3) {
+        validar(valor);
+
+        int ultimoCampo = digitos3 > 0 ? 2 : 1;
+        int campo = 0;
+        int digitos = 0;
+        int atual = 0;
+        long resultado = 0;
+
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digitos > 4) {
+                    throw dataInvalida(valor);
+                }
+                atual = atual * 10 + (c - '0');
+            } else if (c == separador) {
+                if (campo == ultimoCampo || digitos != (campo == 0 ? digitos1 : digitos2)) {
+                    throw dataInvalida(valor);
+                }
+                resultado = (resultado << 16) | atual;
+                campo++;
+                digitos = 0;
+                atual = 0;
+            }
+        }
+
+        if (campo != ultimoCampo || digitos != (ultimoCampo == 1 ? digitos2 : digitos3)) {
+            throw dataInvalida(valor);
+        }
+        return (resultado << 16) | atual;
+    }
+
+    private static DateTimeParseException dataInvalida(CharSequence valor) {
+        log.error("Data inválida. Formatos aceitos: MM/yyyy, yyyy/MM ou yyyy-MM-dd; recebido = {}", valor);
+        return new DateTimeParseException("Data inválida: " + valor, valor, 0);
+    }
+
+    // mesma conta de LocalDate.toEpochDay(), sem instanciar a data
+    private static long epochDay(int ano, int mes, int dia) {
+        long y = ano;
+        long total = 365 * y;
+        if (y >= 0) {
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        } else {
+            total -= y / -4 - y / -100 + y / -400;
+        }
+        total += (367 * mes - 362) / 12;
+        total += dia - 1;
+        if (mes > 2) {
+            total--;
+            if (!Year.isLeap(ano)) {
+                total--;
+            }
+        }
+        return total - 719528;
+    }
+
+    /**
+     * Escreve o epoch-day como "yyyy-MM-dd" (ASCII) em {@code destino} a partir
+     * de {@code pos}, sem instanciar LocalDate. Retorna a posição seguinte.
+     */
+    public static int escreverIsoDate(long epochDay, byte[] destino, int pos) {
+        // inverso de epochDay(): eras de 400 anos contadas a partir de 0000-03-01
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long diaDaEra = z - era * 146097;
+        long anoDaEra = (diaDaEra - diaDaEra / 1460 + diaDaEra / 36524 - diaDaEra / 146096) / 365;
+        long diaDoAno = diaDaEra - (365 * anoDaEra + anoDaEra / 4 - anoDaEra / 100);
+        long mesDesdeMarco = (5 * diaDoAno + 2) / 153;
+
+        int dia = (int) (diaDoAno - (153 * mesDesdeMarco + 2) / 5 + 1);
+        int mes = (int) (mesDesdeMarco < 10 ? mesDesdeMarco + 3 : mesDesdeMarco - 9);
+        long ano = anoDaEra + era * 400 + (mes <= 2 ? 1 : 0);
+
+        if (ano < 0 || ano > 9999) {
+            throw new DateTimeException("Ano fora de yyyy: " + ano);
+        }
+
+        pos = escreverDigitos((int) ano, 4, destino, pos);
+        destino[pos++] = '-';
+        pos = escreverDigitos(mes, 2, destino, pos);
+        destino[pos++] = '-';
+        return escreverDigitos(dia, 2, destino, pos);
+    }
+
+    private static int escreverDigitos(int valor, int digitos, byte[] destino, int pos) {
+        for (int i = pos + digitos - 1; i >= pos; i--) {
+            destino[i] = (byte) ('0' + valor % 10);
+            valor /= 10;
+        }
+        return pos + digitos;
     }
 
     public static String formatIsoDate(LocalDate date) {
@@ -173,6 +315,48 @@ public final class Utils {
                 OBJECT_MAPPER.getTypeFactory().constructCollectionType(List.class, elementClass));
     }
 
+    /**
+     * Lê um array JSON de forma incremental (token a token) e entrega os elementos
+     * ao consumidor em blocos de no máximo {@code tamanhoChunk}, sem carregar o
+     * arquivo inteiro em memória. Retorna o total de elementos lidos.
+     */
+    public static <T> long streamJsonList(InputStream in, Class<T> elementClass, int tamanhoChunk,
+                                          Consumer<List<T>> consumidor) throws IOException {
+        if (tamanhoChunk <= 0) {
+            throw new IllegalArgumentException("tamanhoChunk deve ser maior que zero");
+        }
+
+        long total = 0;
+
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("JSON inválido: esperado um array na raiz do arquivo.");
+            }
+
+            List<T> chunk = new ArrayList<>(tamanhoChunk);
+
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() == null) {
+                    throw new IOException("JSON inválido: array não foi fechado.");
+                }
+
+                chunk.add(OBJECT_MAPPER.readValue(parser, elementClass));
+                total++;
+
+                if (chunk.size() == tamanhoChunk) {
+                    consumidor.accept(chunk);
+                    chunk = new ArrayList<>(tamanhoChunk);
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                consumidor.accept(chunk);
+            }
+        }
+
+        return total;
+    }
+
 
     // === JSON genérico para arquivos ===
     public static <T> T parseJson(String path, Class<T> clazz) throws IOException {
@@ -243,6 +427,27 @@ public final class Utils {
         return UUID.randomUUID().toString();
     }
 
+    /**
+     * Total de bytes já alocados no heap pela thread corrente, ou -1 se a JVM
+     * não mede (ou a thread é virtual). Só a diferença entre duas leituras na
+     * mesma thread tem sentido: ver {@link #bytesAlocadosDesde(long)}.
+     */
+    public static long bytesAlocadosThread() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()
+                && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /** Bytes alocados pela thread corrente desde {@code inicio} (de {@link #bytesAlocadosThread()}), ou null sem medição. */
+    public static Long bytesAlocadosDesde(long inicio) {
+        long atual = bytesAlocadosThread();
+        return inicio < 0 || atual < 0 ? null : atual - inicio;
+    }
+
+
     public static <T> List<T> fromIterable(Iterable<T> it) {
         List<T> list = new ArrayList<>();
         it.forEach(list::add);
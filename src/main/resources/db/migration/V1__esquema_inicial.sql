@@ -0,0 +1,69 @@
+-- Esquema que o ddl-auto=update criava. IF NOT EXISTS: bancos já existentes
+-- (baseline na versão 0) mantêm as tabelas que tinham e só recebem as
+-- colunas que faltam, nos ALTER TABLE abaixo de cada uma.
+
+CREATE TABLE IF NOT EXISTS cotacao_cafe (
+    cotcaf_id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    cotcaf_data_referencia  DATE NOT NULL,
+    cotcaf_tipo             VARCHAR(100),
+    cotcaf_valor            FLOAT(53) NOT NULL,
+    cotcaf_variacao         FLOAT(53),
+    cotcaf_origem           VARCHAR(255),
+    cotcaf_criado_em        DATE
+);
+
+ALTER TABLE cotacao_cafe
+    ADD COLUMN IF NOT EXISTS cotcaf_tipo       VARCHAR(100),
+    ADD COLUMN IF NOT EXISTS cotcaf_variacao   FLOAT(53),
+    ADD COLUMN IF NOT EXISTS cotcaf_origem     VARCHAR(255),
+    ADD COLUMN IF NOT EXISTS cotcaf_criado_em  DATE;
+
+CREATE TABLE IF NOT EXISTS imp_historico (
+    imp_id                    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    imp_nome_arquivo          VARCHAR(255) NOT NULL,
+    imp_origem                VARCHAR(50) NOT NULL,
+    imp_data                  TIMESTAMP(6) NOT NULL,
+    imp_total_registro        INTEGER NOT NULL,
+    imp_tempo_execucao        BIGINT NOT NULL,
+    imp_pico_heap             BIGINT,
+    imp_registros_por_segundo FLOAT(53),
+    imp_status                VARCHAR(20),
+    imp_registros_lidos       BIGINT,
+    imp_registros_gravados    BIGINT,
+    imp_iniciado_em           TIMESTAMP(6),
+    imp_finalizado_em         TIMESTAMP(6),
+    imp_mensagem_erro         VARCHAR(1000),
+    imp_tempo_parse           BIGINT,
+    imp_hash                  VARCHAR(64)
+);
+
+-- o baseline só tinha até imp_tempo_execucao
+ALTER TABLE imp_historico
+    ADD COLUMN IF NOT EXISTS imp_pico_heap             BIGINT,
+    ADD COLUMN IF NOT EXISTS imp_registros_por_segundo FLOAT(53),
+    ADD COLUMN IF NOT EXISTS imp_status                VARCHAR(20),
+    ADD COLUMN IF NOT EXISTS imp_registros_lidos       BIGINT,
+    ADD COLUMN IF NOT EXISTS imp_registros_gravados    BIGINT,
+    ADD COLUMN IF NOT EXISTS imp_iniciado_em           TIMESTAMP(6),
+    ADD COLUMN IF NOT EXISTS imp_finalizado_em         TIMESTAMP(6),
+    ADD COLUMN IF NOT EXISTS imp_mensagem_erro         VARCHAR(1000),
+    ADD COLUMN IF NOT EXISTS imp_tempo_parse           BIGINT,
+    ADD COLUMN IF NOT EXISTS imp_hash                  VARCHAR(64);
+
+-- importações anteriores ao status foram todas concluídas
+UPDATE imp_historico SET imp_status = 'CONCLUIDO' WHERE imp_status IS NULL;
+
+CREATE TABLE IF NOT EXISTS cotacao_cafe_resumo (
+    cotres_id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    cotres_intervalo      VARCHAR(10) NOT NULL,
+    cotres_data_inicio    DATE NOT NULL,
+    cotres_tipo           VARCHAR(100),
+    cotres_origem         VARCHAR(255),
+    cotres_abertura       BIGINT NOT NULL,
+    cotres_maxima         BIGINT NOT NULL,
+    cotres_minima         BIGINT NOT NULL,
+    cotres_fechamento     BIGINT NOT NULL,
+    cotres_media          BIGINT NOT NULL,
+    cotres_pontos         INTEGER NOT NULL,
+    cotres_atualizado_em  TIMESTAMP(6)
+);
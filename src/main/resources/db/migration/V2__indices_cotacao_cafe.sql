@@ -0,0 +1,26 @@
+-- Uma cotação por (origem, tipo, data). Duplicatas antigas: fica a de maior id.
+DELETE FROM cotacao_cafe c
+ USING cotacao_cafe d
+ WHERE c.cotcaf_origem = d.cotcaf_origem
+   AND c.cotcaf_tipo = d.cotcaf_tipo
+   AND c.cotcaf_data_referencia = d.cotcaf_data_referencia
+   AND c.cotcaf_id < d.cotcaf_id;
+
+-- alvo do INSERT ... ON CONFLICT da importação; cobre a leitura da série
+-- por origem/tipo (cache) sem ir à tabela
+CREATE UNIQUE INDEX IF NOT EXISTS ux_cotacao_cafe_origem_tipo_data
+    ON cotacao_cafe (cotcaf_origem, cotcaf_tipo, cotcaf_data_referencia)
+    INCLUDE (cotcaf_valor);
+
+-- leituras por período e por data + origem (buscarPorDataEOrigem,
+-- buscarPorPeriodoEOrigem) resolvidas só no índice
+CREATE INDEX IF NOT EXISTS ix_cotacao_cafe_data_valor
+    ON cotacao_cafe (cotcaf_data_referencia)
+    INCLUDE (cotcaf_valor, cotcaf_origem, cotcaf_tipo);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_cotacao_cafe_resumo
+    ON cotacao_cafe_resumo (cotres_intervalo, cotres_origem, cotres_tipo, cotres_data_inicio);
+
+-- ImpHistoricoSelect.buscarConcluidoPorHash
+CREATE INDEX IF NOT EXISTS ix_imp_historico_hash
+    ON imp_historico (imp_hash);
@@ -0,0 +1,25 @@
+-- A importação só recalcula os resumos dos meses em que gravou valores, então
+-- o histórico que já estava em cotacao_cafe antes dos resumos existirem fica
+-- sem eles. Aqui todos os meses/anos de todas as séries são calculados uma vez,
+-- com a mesma conta de CotacaoResumoService (valores em 1e-4, média arredondada).
+
+INSERT INTO cotacao_cafe_resumo (cotres_intervalo, cotres_data_inicio, cotres_tipo, cotres_origem,
+                                 cotres_abertura, cotres_maxima, cotres_minima, cotres_fechamento,
+                                 cotres_media, cotres_pontos, cotres_atualizado_em)
+SELECT i.intervalo, date_trunc(i.unidade, c.data)::date, c.tipo, c.origem,
+       (array_agg(c.fixo ORDER BY c.data))[1], max(c.fixo), min(c.fixo),
+       (array_agg(c.fixo ORDER BY c.data DESC))[1],
+       floor(sum(c.fixo)::float8 / count(*) + 0.5)::bigint, count(*), localtimestamp
+  FROM (SELECT cotcaf_data_referencia::timestamp AS data, cotcaf_tipo AS tipo, cotcaf_origem AS origem,
+               round(cotcaf_valor * 10000)::bigint AS fixo
+          FROM cotacao_cafe) c
+ CROSS JOIN (VALUES ('MENSAL', 'month'), ('ANUAL', 'year')) AS i (intervalo, unidade)
+ GROUP BY 1, 2, 3, 4
+ON CONFLICT (cotres_intervalo, cotres_origem, cotres_tipo, cotres_data_inicio) DO UPDATE SET
+    cotres_abertura = EXCLUDED.cotres_abertura,
+    cotres_maxima = EXCLUDED.cotres_maxima,
+    cotres_minima = EXCLUDED.cotres_minima,
+    cotres_fechamento = EXCLUDED.cotres_fechamento,
+    cotres_media = EXCLUDED.cotres_media,
+    cotres_pontos = EXCLUDED.cotres_pontos,
+    cotres_atualizado_em = EXCLUDED.cotres_atualizado_em;
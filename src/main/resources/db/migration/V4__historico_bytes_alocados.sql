@@ -0,0 +1,6 @@
+-- imp_pico_heap somava os picos dos pools de heap da JVM inteira, zerados a cada
+-- importação: importações simultâneas e requisições entravam na conta de todas.
+-- Passa a valer o que a própria importação alocou, medido na thread que a executa;
+-- os valores antigos não têm esse significado e não são migrados.
+ALTER TABLE imp_historico DROP COLUMN IF EXISTS imp_pico_heap;
+ALTER TABLE imp_historico ADD COLUMN IF NOT EXISTS imp_bytes_alocados BIGINT;
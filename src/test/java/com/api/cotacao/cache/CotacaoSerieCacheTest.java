@@ -0,0 +1,175 @@
+package com.api.cotacao.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import com.api.cotacao.DTO.CotacaoCafePaginaDTO;
+import com.api.cotacao.DTO.CotacaoCafePeriodoDTO;
+
+class CotacaoSerieCacheTest {
+
+	private static final LocalDate INICIO = LocalDate.of(2020, 1, 1);
+
+	/** Um ponto por dia a partir de INICIO; {@code repeticoes[i]} pontos no i-ésimo dia. */
+	private static CotacaoSerieCache.Serie serie(int... repeticoes) {
+		int total = 0;
+		for (int r : repeticoes) {
+			total += r;
+		}
+		int[] dias = new int[total];
+		long[] valores = new long[total];
+		int i = 0;
+		for (int d = 0; d < repeticoes.length; d++) {
+			for (int r = 0; r < repeticoes[d]; r++, i++) {
+				dias[i] = (int) INICIO.plusDays(d).toEpochDay();
+				valores[i] = 10_000L * (i + 1);
+			}
+		}
+		return new CotacaoSerieCache.Serie(dias, valores);
+	}
+
+	private static int[] uns(int dias) {
+		int[] repeticoes = new int[dias];
+		Arrays.fill(repeticoes, 1);
+		return repeticoes;
+	}
+
+	/** Percorre todas as páginas seguindo o cursor, como um cliente. */
+	private static List<CotacaoCafePaginaDTO> paginas(CotacaoSerieCache.Serie serie, LocalDate inicio, LocalDate fim, int limite) {
+		List<CotacaoCafePaginaDTO> paginas = new ArrayList<>();
+		LocalDate depoisDe = null;
+		do {
+			CotacaoCafePaginaDTO pagina = CotacaoSerieCache.pagina(serie, inicio, fim, depoisDe, limite);
+			paginas.add(pagina);
+			depoisDe = pagina.proximo();
+			assertThat(paginas).as("cursor não avança").hasSizeLessThan(10_000);
+		} while (depoisDe != null);
+		return paginas;
+	}
+
+	@Test
+	void paginasCobremAJanelaSemRepetirNemPerder() {
+		CotacaoSerieCache.Serie serie = serie(uns(25));
+		LocalDate fim = INICIO.plusDays(24);
+
+		for (int limite = 1; limite <= 30; limite++) {
+			List<CotacaoCafePeriodoDTO> todos = new ArrayList<>();
+			for (CotacaoCafePaginaDTO pagina : paginas(serie, INICIO, fim, limite)) {
+				assertThat(pagina.itens()).hasSizeLessThanOrEqualTo(limite);
+				todos.addAll(pagina.itens());
+			}
+			assertThat(todos).extracting(CotacaoCafePeriodoDTO::data)
+					.containsExactlyElementsOf(INICIO.datesUntil(fim.plusDays(1)).toList());
+		}
+	}
+
+	@Test
+	void proximoNuloNoFimDaJanela() {
+		CotacaoSerieCache.Serie serie = serie(uns(10));
+
+		// janela termina exatamente no fim da página
+		CotacaoCafePaginaDTO exata = CotacaoSerieCache.pagina(serie, INICIO, INICIO.plusDays(4), null, 5);
+		assertThat(exata.itens()).hasSize(5);
+		assertThat(exata.proximo()).isNull();
+
+		// a série continua depois da janela, mas a página não passa dela
+		CotacaoCafePaginaDTO ultima = CotacaoSerieCache.pagina(serie, INICIO, INICIO.plusDays(4), INICIO.plusDays(2), 5);
+		assertThat(ultima.itens()).extracting(CotacaoCafePeriodoDTO::data)
+				.containsExactly(INICIO.plusDays(3), INICIO.plusDays(4));
+		assertThat(ultima.proximo()).isNull();
+
+		CotacaoCafePaginaDTO meio = CotacaoSerieCache.pagina(serie, INICIO, INICIO.plusDays(4), null, 3);
+		assertThat(meio.proximo()).isEqualTo(INICIO.plusDays(2));
+	}
+
+	@Test
+	void janelaVaziaOuCursorNoFim() {
+		CotacaoSerieCache.Serie serie = serie(uns(10));
+
+		for (CotacaoCafePaginaDTO pagina : List.of(
+				CotacaoSerieCache.pagina(serie, INICIO.plusDays(20), INICIO.plusDays(30), null, 5),
+				CotacaoSerieCache.pagina(serie, INICIO.plusDays(5), INICIO.plusDays(2), null, 5),
+				CotacaoSerieCache.pagina(serie, INICIO, INICIO.plusDays(9), INICIO.plusDays(9), 5),
+				CotacaoSerieCache.pagina(CotacaoSerieCache.VAZIA, INICIO, INICIO.plusDays(9), null, 5))) {
+			assertThat(pagina.itens()).isEmpty();
+			assertThat(pagina.proximo()).isNull();
+		}
+	}
+
+	@Test
+	void dataNuncaDivididaEntrePaginas() {
+		// dia 2 com três pontos (várias séries na chave): cai inteiro numa página
+		CotacaoSerieCache.Serie serie = serie(1, 1, 3, 1, 2, 1);
+		LocalDate fim = INICIO.plusDays(5);
+
+		for (int limite = 1; limite <= 10; limite++) {
+			List<LocalDate> vistas = new ArrayList<>();
+			int pontos = 0;
+			for (CotacaoCafePaginaDTO pagina : paginas(serie, INICIO, fim, limite)) {
+				List<LocalDate> datas = pagina.itens().stream().map(CotacaoCafePeriodoDTO::data).distinct().toList();
+				assertThat(vistas).as("limite %d", limite).doesNotContainAnyElementsOf(datas);
+				vistas.addAll(datas);
+				pontos += pagina.itens().size();
+			}
+			assertThat(pontos).isEqualTo(9);
+		}
+	}
+
+	@Test
+	void paginaPassaDoLimiteParaNaoDividirAData() {
+		CotacaoSerieCache.Serie serie = serie(1, 4, 1);
+
+		CotacaoCafePaginaDTO pagina = CotacaoSerieCache.pagina(serie, INICIO, INICIO.plusDays(2), null, 2);
+
+		assertThat(pagina.itens()).hasSize(5);
+		assertThat(pagina.proximo()).isEqualTo(INICIO.plusDays(1));
+
+		CotacaoCafePaginaDTO seguinte = CotacaoSerieCache.pagina(serie, INICIO, INICIO.plusDays(2), pagina.proximo(), 2);
+		assertThat(seguinte.itens()).extracting(CotacaoCafePeriodoDTO::data).containsExactly(INICIO.plusDays(2));
+		assertThat(seguinte.proximo()).isNull();
+	}
+
+	@Test
+	void paginasAleatoriasEquivalemAJanelaInteira() {
+		SplittableRandom random = new SplittableRandom(13);
+		for (int caso = 0; caso < 200; caso++) {
+			int[] repeticoes = new int[1 + random.nextInt(40)];
+			for (int d = 0; d < repeticoes.length; d++) {
+				repeticoes[d] = random.nextInt(4);
+			}
+			CotacaoSerieCache.Serie serie = serie(repeticoes);
+			LocalDate inicio = INICIO.plusDays(random.nextInt(10));
+			LocalDate fim = inicio.plusDays(random.nextInt(40));
+			int limite = 1 + random.nextInt(8);
+
+			int de = serie.primeiroIndice(inicio);
+			int ate = serie.fimExclusivo(fim);
+			List<CotacaoCafePeriodoDTO> janela = new ArrayList<>();
+			for (int i = de; i < ate; i++) {
+				janela.add(CotacaoCafePeriodoDTO.of(LocalDate.ofEpochDay(serie.dia(i)), serie.valorFixo(i)));
+			}
+
+			List<CotacaoCafePeriodoDTO> paginado = new ArrayList<>();
+			for (CotacaoCafePaginaDTO pagina : paginas(serie, inicio, fim, limite)) {
+				paginado.addAll(pagina.itens());
+			}
+			assertThat(paginado).isEqualTo(janela);
+		}
+	}
+
+	@Test
+	void limiteNaoPositivoERecusado() {
+		CotacaoSerieCache.Serie serie = serie(uns(3));
+
+		assertThatThrownBy(() -> CotacaoSerieCache.pagina(serie, INICIO, INICIO.plusDays(2), null, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,99 @@
+package com.api.cotacao.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.api.cotacao.DTO.CotacaoCafeAgregadoDTO;
+import com.api.cotacao.DTO.CotacaoCafePeriodoDTO;
+
+class SerieAgregacaoTest {
+
+	private static final LocalDate INICIO = LocalDate.of(2020, 1, 1);
+
+	/** {@code pontos} dias seguidos a partir de INICIO, com valor oscilando. */
+	private static CotacaoSerieCache.Serie serie(int pontos) {
+		int[] dias = new int[pontos];
+		long[] valores = new long[pontos];
+		for (int i = 0; i < pontos; i++) {
+			dias[i] = (int) INICIO.plusDays(i).toEpochDay();
+			valores[i] = 1_000_000 + Math.round(Math.sin(i / 5.0) * 100_000) + i;
+		}
+		return new CotacaoSerieCache.Serie(dias, valores);
+	}
+
+	@Test
+	void reduzirRecusaMenosDeTresPontos() {
+		CotacaoSerieCache.Serie serie = serie(100);
+
+		for (int maxPontos = -1; maxPontos < SerieAgregacao.MIN_PONTOS; maxPontos++) {
+			int max = maxPontos;
+			for (SerieAgregacao.Metodo metodo : SerieAgregacao.Metodo.values()) {
+				assertThatThrownBy(() -> SerieAgregacao.reduzir(serie, 0, 100, max, metodo))
+						.isInstanceOf(IllegalArgumentException.class);
+			}
+		}
+	}
+
+	@Test
+	void reduzirNuncaPassaDeMaxPontos() {
+		CotacaoSerieCache.Serie serie = serie(1000);
+
+		for (int maxPontos = SerieAgregacao.MIN_PONTOS; maxPontos <= 50; maxPontos++) {
+			for (SerieAgregacao.Metodo metodo : SerieAgregacao.Metodo.values()) {
+				List<CotacaoCafePeriodoDTO> reduzida = SerieAgregacao.reduzir(serie, 0, 1000, maxPontos, metodo);
+
+				assertThat(reduzida).hasSizeLessThanOrEqualTo(maxPontos).isNotEmpty();
+				assertThat(reduzida).extracting(CotacaoCafePeriodoDTO::data).isSorted().doesNotHaveDuplicates();
+			}
+		}
+	}
+
+	@Test
+	void lttbMantemPrimeiroEUltimoPonto() {
+		CotacaoSerieCache.Serie serie = serie(500);
+
+		List<CotacaoCafePeriodoDTO> reduzida = SerieAgregacao.reduzir(serie, 10, 400, 20, SerieAgregacao.Metodo.LTTB);
+
+		assertThat(reduzida).hasSize(20);
+		assertThat(reduzida.get(0).data()).isEqualTo(INICIO.plusDays(10));
+		assertThat(reduzida.get(19).data()).isEqualTo(INICIO.plusDays(399));
+	}
+
+	@Test
+	void janelaMenorQueMaxPontosVoltaInteira() {
+		CotacaoSerieCache.Serie serie = serie(10);
+
+		assertThat(SerieAgregacao.reduzir(serie, 2, 8, 6, SerieAgregacao.Metodo.LTTB)).hasSize(6);
+		assertThat(SerieAgregacao.reduzir(serie, 5, 5, 3, SerieAgregacao.Metodo.MINMAX)).isEmpty();
+	}
+
+	@Test
+	void agregarMensalCalculaOhlc() {
+		int[] dias = {
+				(int) LocalDate.of(2020, 1, 5).toEpochDay(),
+				(int) LocalDate.of(2020, 1, 20).toEpochDay(),
+				(int) LocalDate.of(2020, 1, 31).toEpochDay(),
+				(int) LocalDate.of(2020, 3, 1).toEpochDay()
+		};
+		long[] valores = {100_000, 300_000, 200_000, 50_000};
+
+		List<CotacaoCafeAgregadoDTO> meses = SerieAgregacao.agregar(
+				new CotacaoSerieCache.Serie(dias, valores), 0, 4, SerieAgregacao.Intervalo.MENSAL);
+
+		assertThat(meses).hasSize(2);
+		CotacaoCafeAgregadoDTO janeiro = meses.get(0);
+		assertThat(janeiro.data()).isEqualTo(LocalDate.of(2020, 1, 1));
+		assertThat(janeiro.abertura()).isEqualByComparingTo("10");
+		assertThat(janeiro.maxima()).isEqualByComparingTo("30");
+		assertThat(janeiro.minima()).isEqualByComparingTo("10");
+		assertThat(janeiro.fechamento()).isEqualByComparingTo("20");
+		assertThat(janeiro.media()).isEqualByComparingTo("20");
+		assertThat(janeiro.pontos()).isEqualTo(3);
+		assertThat(meses.get(1).data()).isEqualTo(LocalDate.of(2020, 3, 1));
+	}
+}
@@ -0,0 +1,38 @@
+package com.api.cotacao.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class CotacaoControllerTest {
+
+	@Test
+	void aceitaGzipPeloNome() {
+		assertThat(CotacaoController.aceitaGzip("gzip")).isTrue();
+		assertThat(CotacaoController.aceitaGzip("gzip, deflate, br")).isTrue();
+		assertThat(CotacaoController.aceitaGzip("deflate;q=0.5, GZIP;q=0.8")).isTrue();
+		assertThat(CotacaoController.aceitaGzip("x-gzip")).isTrue();
+	}
+
+	@Test
+	void recusaGzipComQZero() {
+		assertThat(CotacaoController.aceitaGzip("gzip;q=0")).isFalse();
+		assertThat(CotacaoController.aceitaGzip("gzip; q=0.0, deflate")).isFalse();
+		assertThat(CotacaoController.aceitaGzip("*, gzip;q=0")).isFalse();
+	}
+
+	@Test
+	void curingaValeQuandoGzipNaoAparece() {
+		assertThat(CotacaoController.aceitaGzip("br, *;q=0.1")).isTrue();
+		assertThat(CotacaoController.aceitaGzip("*;q=0")).isFalse();
+	}
+
+	@Test
+	void semGzipOuCabecalhoInvalido() {
+		assertThat(CotacaoController.aceitaGzip(null)).isFalse();
+		assertThat(CotacaoController.aceitaGzip("")).isFalse();
+		assertThat(CotacaoController.aceitaGzip("identity, deflate")).isFalse();
+		assertThat(CotacaoController.aceitaGzip("gzipped")).isFalse();
+		assertThat(CotacaoController.aceitaGzip("gzip;q=abc")).isFalse();
+	}
+}
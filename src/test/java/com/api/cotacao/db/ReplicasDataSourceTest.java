@@ -0,0 +1,208 @@
+package com.api.cotacao.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Duas instâncias locais: primário e réplica. A réplica simula o estado de
+ * recuperação com funções em public que, pelo search_path, encobrem as de
+ * pg_catalog; assim a consulta de atraso real é exercitada.
+ */
+class ReplicasDataSourceTest {
+
+	private static final String SIMULAR_REPLICA = """
+			CREATE TABLE IF NOT EXISTS atraso_simulado (segundos int NOT NULL);
+			DELETE FROM atraso_simulado;
+			INSERT INTO atraso_simulado VALUES (0);
+			CREATE OR REPLACE FUNCTION public.pg_is_in_recovery() RETURNS boolean
+				LANGUAGE sql AS 'SELECT true';
+			CREATE OR REPLACE FUNCTION public.pg_last_wal_receive_lsn() RETURNS pg_lsn
+				LANGUAGE sql AS 'SELECT ''0/2''::pg_lsn';
+			CREATE OR REPLACE FUNCTION public.pg_last_wal_replay_lsn() RETURNS pg_lsn
+				LANGUAGE sql AS 'SELECT ''0/1''::pg_lsn';
+			CREATE OR REPLACE FUNCTION public.pg_last_xact_replay_timestamp() RETURNS timestamptz
+				LANGUAGE sql AS 'SELECT now() - make_interval(secs => (SELECT segundos FROM atraso_simulado))';
+			""";
+
+	private static EmbeddedPostgres primarioPg;
+	private static EmbeddedPostgres replicaPg;
+
+	private HikariDataSource primario;
+	private HikariDataSource replica;
+	private ReplicasDataSource dataSource;
+
+	@BeforeAll
+	static void subir() throws Exception {
+		primarioPg = EmbeddedPostgres.builder().start();
+		replicaPg = EmbeddedPostgres.builder().start();
+	}
+
+	@AfterAll
+	static void descer() throws Exception {
+		primarioPg.close();
+		replicaPg.close();
+	}
+
+	@BeforeEach
+	void montar() throws SQLException {
+		executar(replicaPg.getPostgresDatabase().getConnection(), SIMULAR_REPLICA);
+
+		primario = pool("primario", primarioPg);
+		replica = pool("replica-1", replicaPg);
+		replica.setConnectionInitSql("SET search_path = public, pg_catalog");
+
+		// sem afterPropertiesSet: o teste conduz as verificações
+		dataSource = new ReplicasDataSource(primario, List.of(replica), 60_000, 30);
+	}
+
+	@AfterEach
+	void desmontar() {
+		dataSource.close();
+		primario.close();
+	}
+
+	@Test
+	void antesDaPrimeiraVerificacaoLeituraVaiAoPrimario() throws SQLException {
+		assertThat(dataSource.getSaudaveis()).isEmpty();
+		assertThat(porta(dataSource)).isEqualTo(primarioPg.getPort());
+	}
+
+	@Test
+	void replicaEmDiaRecebeAsLeituras() throws SQLException {
+		dataSource.verificar();
+
+		assertThat(dataSource.getSaudaveis()).containsExactly("replica-1");
+		assertThat(porta(dataSource)).isEqualTo(replicaPg.getPort());
+	}
+
+	@Test
+	void replicaAtrasadaSaiDeCirculacaoEVolta() throws SQLException {
+		dataSource.verificar();
+		atrasarReplica(3600);
+
+		dataSource.verificar();
+		assertThat(dataSource.getSaudaveis()).isEmpty();
+		assertThat(porta(dataSource)).isEqualTo(primarioPg.getPort());
+
+		atrasarReplica(0);
+		dataSource.verificar();
+		assertThat(porta(dataSource)).isEqualTo(replicaPg.getPort());
+	}
+
+	@Test
+	void atrasoDentroDoLimiteMantemAReplica() throws SQLException {
+		atrasarReplica(10);
+		dataSource.verificar();
+
+		assertThat(dataSource.getSaudaveis()).containsExactly("replica-1");
+	}
+
+	@Test
+	void replicaAtrasadaNaoServeLeituraLogoAposAlteracao() throws SQLException {
+		// a réplica, 10 s atrás (dentro do limite), ainda não tem a linha nova
+		executar(primarioPg.getPostgresDatabase().getConnection(),
+				"DROP TABLE IF EXISTS versao; CREATE TABLE versao (v int); INSERT INTO versao VALUES (2)");
+		executar(replicaPg.getPostgresDatabase().getConnection(),
+				"DROP TABLE IF EXISTS versao; CREATE TABLE versao (v int); INSERT INTO versao VALUES (1)");
+		atrasarReplica(10);
+		dataSource.verificar();
+		assertThat(dataSource.getSaudaveis()).containsExactly("replica-1");
+
+		// alteração antiga: janela (30 s de atraso + 60 s de verificação) já passou
+		long agora = System.currentTimeMillis();
+		dataSource.alteracaoConfirmada(agora - 91_000);
+		assertThat(versao(dataSource)).isEqualTo(1);
+
+		dataSource.alteracaoConfirmada(agora);
+		assertThat(versao(dataSource)).isEqualTo(2);
+		assertThat(porta(dataSource)).isEqualTo(primarioPg.getPort());
+
+		// uma notificação atrasada não encurta a janela
+		dataSource.alteracaoConfirmada(agora - 91_000);
+		assertThat(porta(dataSource)).isEqualTo(primarioPg.getPort());
+	}
+
+	@Test
+	void credenciaisExplicitasSaoRepassadasAoDestino() throws SQLException {
+		// Hikari não aceita credenciais por chamada; o DataSource do driver aceita
+		ReplicasDataSource comDriver = new ReplicasDataSource(primarioPg.getPostgresDatabase(), List.of(), 60_000, 30);
+		try (Connection conexao = comDriver.getConnection("postgres", "postgres")) {
+			assertThat(conexao.getMetaData().getUserName()).isEqualTo("postgres");
+		} finally {
+			comDriver.close();
+		}
+	}
+
+	@Test
+	void replicaForaDoArVaiAoPrimario() throws Exception {
+		EmbeddedPostgres temporaria = EmbeddedPostgres.builder().start();
+		HikariDataSource poolTemporario = pool("replica-2", temporaria);
+		ReplicasDataSource comQueda = new ReplicasDataSource(primario, List.of(poolTemporario), 60_000, 30);
+		try {
+			comQueda.verificar();
+			assertThat(comQueda.getSaudaveis()).containsExactly("replica-2");
+
+			temporaria.close();
+			poolTemporario.getHikariPoolMXBean().softEvictConnections();
+
+			// a falha na conexão já tira a réplica, sem esperar a verificação
+			assertThat(porta(comQueda)).isEqualTo(primarioPg.getPort());
+			assertThat(comQueda.getSaudaveis()).isEmpty();
+		} finally {
+			comQueda.close();
+		}
+	}
+
+	private void atrasarReplica(int segundos) throws SQLException {
+		executar(replicaPg.getPostgresDatabase().getConnection(), "UPDATE atraso_simulado SET segundos = " + segundos);
+	}
+
+	private static HikariDataSource pool(String nome, EmbeddedPostgres pg) {
+		HikariDataSource ds = new HikariDataSource();
+		ds.setPoolName(nome);
+		ds.setJdbcUrl(pg.getJdbcUrl("postgres", "postgres"));
+		ds.setMaximumPoolSize(2);
+		ds.setConnectionTimeout(1000);
+		ds.setInitializationFailTimeout(-1);
+		return ds;
+	}
+
+	private static int porta(ReplicasDataSource ds) throws SQLException {
+		try (Connection conexao = ds.getConnection();
+			 Statement st = conexao.createStatement();
+			 ResultSet rs = st.executeQuery("SELECT current_setting('port')::int")) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
+	private static int versao(ReplicasDataSource ds) throws SQLException {
+		try (Connection conexao = ds.getConnection();
+			 Statement st = conexao.createStatement();
+			 ResultSet rs = st.executeQuery("SELECT v FROM versao")) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
+	private static void executar(Connection conexao, String sql) throws SQLException {
+		try (conexao; Statement st = conexao.createStatement()) {
+			st.execute(sql);
+		}
+	}
+}
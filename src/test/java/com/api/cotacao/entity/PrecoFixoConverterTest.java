@@ -0,0 +1,39 @@
+package com.api.cotacao.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class PrecoFixoConverterTest {
+
+	private final PrecoFixoConverter converter = new PrecoFixoConverter();
+
+	@Test
+	void nuloPassaDireto() {
+		assertThat(converter.convertToDatabaseColumn(null)).isNull();
+		assertThat(converter.convertToEntityAttribute(null)).isNull();
+	}
+
+	@Test
+	void colunaEAtributoIdaEVolta() {
+		for (long fixo = -2_000_000; fixo <= 2_000_000; fixo += 37) {
+			Double coluna = converter.convertToDatabaseColumn(fixo);
+			assertThat(converter.convertToEntityAttribute(coluna)).isEqualTo(fixo);
+		}
+	}
+
+	@Test
+	void colunaComMaisCasasArredondaNaQuarta() {
+		assertThat(converter.convertToEntityAttribute(1234.56785)).isEqualTo(12_345_679L);
+		assertThat(converter.convertToEntityAttribute(-1234.56785)).isEqualTo(-12_345_679L);
+	}
+
+	@Test
+	void colunaForaDaFaixaLanca() {
+		assertThatThrownBy(() -> converter.convertToEntityAttribute(Double.NaN))
+				.isInstanceOf(ArithmeticException.class);
+		assertThatThrownBy(() -> converter.convertToEntityAttribute(1e300))
+				.isInstanceOf(ArithmeticException.class);
+	}
+}
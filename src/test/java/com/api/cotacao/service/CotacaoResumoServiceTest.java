@@ -0,0 +1,172 @@
+package com.api.cotacao.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.api.cotacao.entity.CotacaoCafeEntity;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Duas importações simultâneas da mesma série, cada uma na sua transação,
+ * contra um PostgreSQL embarcado: a segunda recalcula os resumos só depois
+ * que a primeira confirma, já com as cotações dela.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.driver-class-name=org.postgresql.Driver",
+		"spring.jpa.hibernate.ddl-auto=validate" })
+class CotacaoResumoServiceTest {
+
+	private static final String ORIGEM = "CEPEA";
+	private static final String TIPO = "Café Robusta";
+
+	private static final EmbeddedPostgres PG = iniciar();
+
+	private static EmbeddedPostgres iniciar() {
+		try {
+			return EmbeddedPostgres.builder().start();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@DynamicPropertySource
+	static void banco(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> PG.getJdbcUrl("postgres", "postgres"));
+	}
+
+	@AfterAll
+	static void descer() throws IOException {
+		PG.close();
+	}
+
+	@Autowired
+	private CotacaoResumoService service;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transacoes;
+
+	private JdbcTemplate jdbc;
+
+	@BeforeEach
+	void limpar() {
+		jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("TRUNCATE cotacao_cafe, cotacao_cafe_resumo");
+	}
+
+	@Test
+	void importacoesSimultaneasDaMesmaSerieNaoPerdemCotacoes() throws Exception {
+		CountDownLatch primeiraRecalculou = new CountDownLatch(1);
+		CountDownLatch liberarPrimeira = new CountDownLatch(1);
+
+		CompletableFuture<Void> primeira = CompletableFuture.runAsync(() -> importar(LocalDate.of(2020, 1, 1), 10.0, () -> {
+			primeiraRecalculou.countDown();
+			aguardar(liberarPrimeira);
+		}));
+		aguardar(primeiraRecalculou);
+
+		CompletableFuture<Void> segunda = CompletableFuture.runAsync(() -> importar(LocalDate.of(2020, 2, 1), 30.0, () -> {}));
+
+		// a primeira ainda não confirmou: a segunda espera na trava da série
+		Thread.sleep(500);
+		assertThat(segunda).isNotDone();
+
+		liberarPrimeira.countDown();
+		primeira.get(30, TimeUnit.SECONDS);
+		segunda.get(30, TimeUnit.SECONDS);
+
+		assertThat(resumos()).containsExactly(
+				"ANUAL 2020-01-01 100000 300000 100000 300000 200000 2",
+				"MENSAL 2020-01-01 100000 100000 100000 100000 100000 1",
+				"MENSAL 2020-02-01 300000 300000 300000 300000 300000 1");
+	}
+
+	@Test
+	void travaDeSeriesDiferentesNaoBloqueia() throws Exception {
+		CountDownLatch primeiraRecalculou = new CountDownLatch(1);
+		CountDownLatch liberarPrimeira = new CountDownLatch(1);
+
+		CompletableFuture<Void> primeira = CompletableFuture.runAsync(() -> importar(LocalDate.of(2020, 1, 1), 10.0, () -> {
+			primeiraRecalculou.countDown();
+			aguardar(liberarPrimeira);
+		}));
+		aguardar(primeiraRecalculou);
+
+		try {
+			// outra série (outro ano do mesmo tipo é a mesma série; outro tipo não)
+			new TransactionTemplate(transacoes).executeWithoutResult(status -> {
+				CotacaoCafeEntity cotacao = inserir(LocalDate.of(2020, 1, 1), "Café Arabica", 50.0);
+				CotacaoResumoService.Afetados afetados = new CotacaoResumoService.Afetados();
+				afetados.registrar(cotacao);
+				assertThat(service.atualizar(afetados)).isEqualTo(2);
+			});
+		} finally {
+			liberarPrimeira.countDown();
+		}
+		primeira.get(30, TimeUnit.SECONDS);
+	}
+
+	/** Grava a cotação e recalcula os resumos numa transação; {@code antesDoCommit} roda com a trava obtida. */
+	private void importar(LocalDate data, double valor, Runnable antesDoCommit) {
+		new TransactionTemplate(transacoes).executeWithoutResult(status -> {
+			CotacaoCafeEntity cotacao = inserir(data, TIPO, valor);
+			CotacaoResumoService.Afetados afetados = new CotacaoResumoService.Afetados();
+			afetados.registrar(cotacao);
+			service.atualizar(afetados);
+			antesDoCommit.run();
+		});
+	}
+
+	private CotacaoCafeEntity inserir(LocalDate data, String tipo, double valor) {
+		jdbc.update("""
+				INSERT INTO cotacao_cafe (cotcaf_data_referencia, cotcaf_tipo, cotcaf_valor, cotcaf_origem, cotcaf_criado_em)
+				VALUES (?, ?, ?, ?, CURRENT_DATE)
+				""", data, tipo, valor, ORIGEM);
+
+		CotacaoCafeEntity cotacao = new CotacaoCafeEntity(data, tipo, valor, null);
+		cotacao.setOrigemDado(ORIGEM);
+		return cotacao;
+	}
+
+	private List<String> resumos() {
+		return jdbc.query("""
+				SELECT cotres_intervalo, cotres_data_inicio, cotres_abertura, cotres_maxima, cotres_minima,
+				       cotres_fechamento, cotres_media, cotres_pontos
+				FROM cotacao_cafe_resumo
+				WHERE cotres_tipo = ?
+				ORDER BY cotres_intervalo, cotres_data_inicio
+				""", (rs, i) -> String.join(" ", rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+						rs.getString(5), rs.getString(6), rs.getString(7), rs.getString(8)), TIPO);
+	}
+
+	private static void aguardar(CountDownLatch latch) {
+		try {
+			assertThat(latch.await(30, TimeUnit.SECONDS)).isTrue();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package com.api.cotacao.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.api.cotacao.utils.PrecoFixo;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Importação em lote (blocos de 4 registros, batches de 3) contra um
+ * PostgreSQL embarcado, comparada com o caminho anterior por linha: cada
+ * registro gravado na ordem do arquivo (o último valor de uma data prevalece)
+ * e a variação recalculada sobre a série inteira depois de cada arquivo.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.driver-class-name=org.postgresql.Driver",
+		"spring.jpa.hibernate.ddl-auto=validate",
+		"app.import.chunk-size=4",
+		"app.import.batch-size=3" })
+class CotacaoServiceImportacaoTest {
+
+	private static final String ARABICA = "Café Arabica";
+	private static final String ROBUSTA = "Café Robusta";
+
+	private static final EmbeddedPostgres PG = iniciar();
+
+	private static EmbeddedPostgres iniciar() {
+		try {
+			return EmbeddedPostgres.builder().start();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@DynamicPropertySource
+	static void banco(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> PG.getJdbcUrl("postgres", "postgres"));
+	}
+
+	@AfterAll
+	static void descer() throws IOException {
+		PG.close();
+	}
+
+	@Autowired
+	private CotacaoService service;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@TempDir
+	private Path dir;
+
+	private JdbcTemplate jdbc;
+	private int arquivos;
+
+	/** Caminho por linha: tipo -> data -> valor em ponto fixo. */
+	private final Map<String, TreeMap<LocalDate, Long>> esperado = new LinkedHashMap<>();
+
+	private record Registro(String mesAno, double valor, String tipo) {}
+
+	@BeforeEach
+	void limpar() {
+		jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("TRUNCATE cotacao_cafe, cotacao_cafe_resumo, imp_historico");
+	}
+
+	@Test
+	void vizinhosDosDoisLadosDoBlocoSaoRecalculados() throws Exception {
+		List<Registro> inicial = new ArrayList<>();
+		for (int mes = 1; mes <= 12; mes++) {
+			inicial.add(new Registro(String.format("%02d/2020", mes), 100 + mes * 3.5, null));
+		}
+		importar(inicial);
+
+		// bloco 1: 05/2020 muda (vizinho seguinte 06/2020 fora do bloco);
+		// bloco 2: 06/2019 antes de tudo (01/2020 deixa de ser a primeira) e 02/2021 depois do fim;
+		// bloco 3: 09/2020 repete e o último valor do arquivo prevalece sobre o do bloco 1
+		importar(List.of(
+				new Registro("05/2020", 80.25, null),
+				new Registro("09/2020", 1.0, null),
+				new Registro("11/2020", 118.5, null),
+				new Registro("10/2020", 135.0, null),
+				new Registro("06/2019", 90.0, null),
+				new Registro("02/2021", 150.0, null),
+				new Registro("03/2020", 110.5, null),
+				new Registro("07/2020", 124.5, null),
+				new Registro("09/2020", 200.75, null)));
+
+		// valor igual não muda nada; zero deixa a variação da seguinte nula
+		importar(List.of(
+				new Registro("02/2021", 150.0, null),
+				new Registro("08/2020", 0.0, null)));
+	}
+
+	@Test
+	void tiposTemSeriesEVariacoesSeparadas() throws Exception {
+		importar(List.of(
+				new Registro("01/2020", 10.0, null),
+				new Registro("01/2020", 100.0, ARABICA),
+				new Registro("02/2020", 20.0, null),
+				new Registro("03/2020", 300.0, ARABICA),
+				new Registro("02/2020", 200.0, ARABICA)));
+
+		importar(List.of(
+				new Registro("12/2019", 5.0, ROBUSTA),
+				new Registro("02/2020", 250.0, ARABICA)));
+	}
+
+	@Test
+	void arquivosAleatoriosIguaisAoCaminhoPorLinha() throws Exception {
+		SplittableRandom random = new SplittableRandom(2016);
+
+		for (int arquivo = 0; arquivo < 12; arquivo++) {
+			List<Registro> registros = new ArrayList<>();
+			int quantidade = 1 + random.nextInt(40);
+			for (int i = 0; i < quantidade; i++) {
+				int ano = 2015 + random.nextInt(6);
+				int mes = 1 + random.nextInt(12);
+				double valor = random.nextInt(20) == 0 ? 0 : random.nextInt(1, 100_000) / 100.0;
+				String tipo = random.nextInt(3) == 0 ? ARABICA : null;
+				registros.add(new Registro(String.format("%02d/%d", mes, ano), valor, tipo));
+			}
+			importar(registros);
+		}
+	}
+
+	/** Importa pelo serviço, aplica o mesmo arquivo no caminho por linha e compara a tabela inteira. */
+	private void importar(List<Registro> registros) throws Exception {
+		StringBuilder json = new StringBuilder("[");
+		for (Registro registro : registros) {
+			if (json.length() > 1) {
+				json.append(',');
+			}
+			json.append("{\"mesAno\":\"").append(registro.mesAno()).append("\",\"valor\":").append(registro.valor());
+			if (registro.tipo() != null) {
+				json.append(",\"tipo\":\"").append(registro.tipo()).append('"');
+			}
+			json.append('}');
+
+			esperado.computeIfAbsent(registro.tipo() != null ? registro.tipo() : ROBUSTA, t -> new TreeMap<>())
+					.put(LocalDate.of(Integer.parseInt(registro.mesAno().substring(3)),
+							Integer.parseInt(registro.mesAno().substring(0, 2)), 1), PrecoFixo.deDouble(registro.valor()));
+		}
+		json.append(']');
+
+		Path arquivo = dir.resolve("cotacao-" + (++arquivos) + ".json");
+		Files.writeString(arquivo, json);
+		service.importarDeJson(arquivo.toString());
+
+		assertThat(gravado()).as("depois do arquivo %d", arquivos).isEqualTo(esperadoComVariacao());
+	}
+
+	private List<String> esperadoComVariacao() {
+		List<String> linhas = new ArrayList<>();
+		for (Map.Entry<String, TreeMap<LocalDate, Long>> serie : new TreeMap<>(esperado).entrySet()) {
+			Long anterior = null;
+			for (Map.Entry<LocalDate, Long> ponto : serie.getValue().entrySet()) {
+				Double variacao = anterior == null ? null : CotacaoService.variacao(anterior, ponto.getValue());
+				linhas.add(linha(serie.getKey(), ponto.getKey(), ponto.getValue(), variacao));
+				anterior = ponto.getValue();
+			}
+		}
+		return linhas;
+	}
+
+	private List<String> gravado() {
+		return jdbc.query("""
+				SELECT cotcaf_tipo, cotcaf_data_referencia, cotcaf_valor, cotcaf_variacao
+				FROM cotacao_cafe
+				WHERE cotcaf_origem = 'CEPEA'
+				ORDER BY cotcaf_tipo, cotcaf_data_referencia
+				""", (rs, i) -> linha(
+						rs.getString(1),
+						rs.getObject(2, LocalDate.class),
+						PrecoFixo.deDouble(rs.getDouble(3)),
+						rs.getObject(4, Double.class)));
+	}
+
+	private static String linha(String tipo, LocalDate data, long valor, Double variacao) {
+		return tipo + " " + data + " " + valor + " " + Objects.toString(variacao);
+	}
+}
@@ -0,0 +1,152 @@
+package com.api.cotacao.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class PrecoFixoTest {
+
+	@Test
+	void idaEVoltaComAteQuatroCasas() {
+		SplittableRandom random = new SplittableRandom(42);
+		for (int i = 0; i < 100_000; i++) {
+			long fixo = random.nextLong(-10_000_000_000L, 10_000_000_000L);
+			double valor = fixo / 10_000.0;
+
+			assertThat(PrecoFixo.deDouble(valor)).isEqualTo(fixo);
+			assertThat(PrecoFixo.paraDouble(fixo)).isEqualTo(valor);
+			assertThat(PrecoFixo.paraBigDecimal(fixo)).isEqualByComparingTo(BigDecimal.valueOf(valor));
+		}
+	}
+
+	@Test
+	void quartaCasaArredondaHalfUpSimetrico() {
+		assertThat(PrecoFixo.deDouble(12.34565)).isEqualTo(123_457);
+		assertThat(PrecoFixo.deDouble(12.34564)).isEqualTo(123_456);
+		assertThat(PrecoFixo.deDouble(0.00005)).isEqualTo(1);
+		assertThat(PrecoFixo.deDouble(-0.00005)).isEqualTo(-1);
+		assertThat(PrecoFixo.deDouble(-0.00004)).isEqualTo(0);
+
+		SplittableRandom random = new SplittableRandom(7);
+		for (int i = 0; i < 100_000; i++) {
+			double valor = random.nextDouble(-1_000_000, 1_000_000);
+			assertThat(PrecoFixo.deDouble(-valor)).isEqualTo(-PrecoFixo.deDouble(valor));
+		}
+
+		// cinco casas, metade delas terminando em 5: mesmo resultado do decimal com HALF_UP
+		for (int i = 0; i < 100_000; i++) {
+			long quintaCasa = random.nextLong(-10_000_000_000L, 10_000_000_000L) * 10 + (i % 2 == 0 ? 5 : random.nextInt(10));
+			double valor = quintaCasa / 100_000.0;
+			long esperado = BigDecimal.valueOf(valor).setScale(PrecoFixo.ESCALA, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+
+			assertThat(PrecoFixo.deDouble(valor)).as("valor=%s", valor).isEqualTo(esperado);
+		}
+	}
+
+	@Test
+	void segundaCasaIgualAoBigDecimalHalfUp() {
+		SplittableRandom random = new SplittableRandom(11);
+		for (int i = 0; i < 100_000; i++) {
+			long fixo = i < 40_000 ? i - 20_000 : random.nextLong(-1_000_000_000_000L, 1_000_000_000_000L);
+			BigDecimal esperado = BigDecimal.valueOf(fixo, PrecoFixo.ESCALA).setScale(2, RoundingMode.HALF_UP);
+
+			assertThat(PrecoFixo.paraBigDecimal(fixo, 2)).isEqualTo(esperado);
+			assertThat(PrecoFixo.paraDouble(fixo, 2)).isEqualTo(esperado.doubleValue());
+			assertThat(Utils.round(PrecoFixo.paraBigDecimal(fixo), 2)).isEqualTo(esperado);
+		}
+	}
+
+	@Test
+	void metadeNaSegundaCasaSobeEmModulo() {
+		assertThat(PrecoFixo.paraBigDecimal(12_345, 2)).isEqualTo(new BigDecimal("1.23"));
+		assertThat(PrecoFixo.paraBigDecimal(12_350, 2)).isEqualTo(new BigDecimal("1.24"));
+		assertThat(PrecoFixo.paraBigDecimal(-12_350, 2)).isEqualTo(new BigDecimal("-1.24"));
+		assertThat(PrecoFixo.paraBigDecimal(-49, 2)).isEqualTo(new BigDecimal("0.00"));
+		assertThat(PrecoFixo.paraBigDecimal(-50, 2)).isEqualTo(new BigDecimal("-0.01"));
+	}
+
+	@Test
+	void decimalNaoSofreComAExpansaoBinaria() {
+		// new BigDecimal(1.005) = 1.00499999...; o caminho antigo (Utils.round) dava 1.00
+		assertThat(Utils.round(new BigDecimal(1.005), 2)).isEqualTo(new BigDecimal("1.00"));
+		assertThat(PrecoFixo.paraBigDecimal(PrecoFixo.deDouble(1.005), 2)).isEqualTo(new BigDecimal("1.01"));
+	}
+
+	@Test
+	void colunaComMaisDeQuatroCasasArredondaDuasVezes() {
+		// logo abaixo da metade da 2ª casa: 4ª casa arredonda para cima e a 2ª sobe junto
+		assertThat(PrecoFixo.deDouble(1.23499)).isEqualTo(12_350);
+		assertThat(PrecoFixo.paraBigDecimal(PrecoFixo.deDouble(1.23499), 2)).isEqualTo(new BigDecimal("1.24"));
+		assertThat(Utils.round(new BigDecimal(1.23499), 2)).isEqualTo(new BigDecimal("1.23"));
+
+		assertThat(PrecoFixo.paraBigDecimal(PrecoFixo.deDouble(-1.23499), 2)).isEqualTo(new BigDecimal("-1.24"));
+
+		// abaixo de x.xx495 a 4ª casa não chega à metade e os dois caminhos concordam
+		assertThat(PrecoFixo.paraBigDecimal(PrecoFixo.deDouble(1.234949), 2)).isEqualTo(new BigDecimal("1.23"));
+		assertThat(Utils.round(new BigDecimal(1.234949), 2)).isEqualTo(new BigDecimal("1.23"));
+	}
+
+	@Test
+	void ateQuatroCasasSoDifereDoAnteriorNaExpansaoBinaria() {
+		// o que a importação grava (até 4 casas) é arredondado uma vez só, no decimal;
+		// o caminho anterior só diverge quando o double fica abaixo de um meio exato
+		for (long fixo = -2_000_000; fixo <= 2_000_000; fixo++) {
+			double coluna = PrecoFixo.paraDouble(fixo);
+			BigDecimal novo = PrecoFixo.paraBigDecimal(PrecoFixo.deDouble(coluna), 2);
+			BigDecimal decimal = BigDecimal.valueOf(coluna).setScale(2, RoundingMode.HALF_UP);
+			assertThat(novo).as("fixo=%d", fixo).isEqualTo(decimal);
+
+			BigDecimal anterior = Utils.round(new BigDecimal(coluna), 2);
+			if (!anterior.equals(novo)) {
+				assertThat(Math.abs(fixo) % 100).as("fixo=%d", fixo).isEqualTo(50);
+				assertThat(new BigDecimal(coluna).abs()).isLessThan(BigDecimal.valueOf(Math.abs(fixo), PrecoFixo.ESCALA));
+			}
+		}
+	}
+
+	@Test
+	void escalaMaiorApenasAcrescentaZeros() {
+		assertThat(PrecoFixo.paraBigDecimal(123_456, 6)).isEqualTo(new BigDecimal("12.345600"));
+		assertThat(PrecoFixo.arredondar(123_456, 6)).isEqualTo(12_345_600);
+	}
+
+	@Test
+	void estouroLancaEmVezDeSaturar() {
+		for (double valor : new double[] { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 1e15, -1e15 }) {
+			assertThatThrownBy(() -> PrecoFixo.deDouble(valor)).isInstanceOf(ArithmeticException.class);
+		}
+		assertThat(PrecoFixo.deDouble(9e14)).isEqualTo(9_000_000_000_000_000_000L);
+
+		assertThatThrownBy(() -> PrecoFixo.arredondar(Long.MAX_VALUE, 6)).isInstanceOf(ArithmeticException.class);
+	}
+
+	@Test
+	void arredondarNosLimitesDoLong() {
+		assertThat(PrecoFixo.arredondar(Long.MAX_VALUE, 2))
+				.isEqualTo(BigDecimal.valueOf(Long.MAX_VALUE, 4).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+		assertThat(PrecoFixo.arredondar(Long.MIN_VALUE, 2))
+				.isEqualTo(BigDecimal.valueOf(Long.MIN_VALUE, 4).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+		assertThat(PrecoFixo.arredondar(Long.MAX_VALUE, 0)).isEqualTo(922_337_203_685_478L);
+	}
+
+	@Test
+	void escreverIgualAoToPlainString() {
+		byte[] destino = new byte[21];
+		long[] valores = { 0, 1, -1, 49, 50, -50, 12_345, -12_345, 1_000_000, Long.MAX_VALUE, Long.MIN_VALUE + 1 };
+		for (long fixo : valores) {
+			for (int escala = 0; escala <= PrecoFixo.ESCALA; escala++) {
+				int fim = PrecoFixo.escrever(fixo, escala, destino, 0);
+
+				assertThat(new String(destino, 0, fim, StandardCharsets.US_ASCII))
+						.as("fixo=%d escala=%d", fixo, escala)
+						.isEqualTo(PrecoFixo.paraBigDecimal(fixo, escala).toPlainString());
+			}
+		}
+	}
+}
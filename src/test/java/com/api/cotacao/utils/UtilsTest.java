@@ -0,0 +1,207 @@
+package com.api.cotacao.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+class UtilsTest {
+
+	private static final DateTimeFormatter MES_ANO = DateTimeFormatter.ofPattern("MM/yyyy", Locale.US);
+	private static final DateTimeFormatter ANO_MES = DateTimeFormatter.ofPattern("yyyy/MM", Locale.US);
+	private static final DateTimeFormatter ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd", Locale.US);
+
+	private static final String[] ANOS = { "0000", "0001", "0999", "1899", "1900", "1970", "2000", "2024", "2100", "2101", "9999" };
+	private static final String[] MESES = { "00", "01", "02", "09", "10", "12", "13", "99" };
+	private static final String[] DIAS = { "00", "01", "28", "29", "30", "31", "32" };
+
+	// destino das alocações do teste, para o JIT não eliminá-las
+	private static volatile byte[] lixo;
+
+	/** Parse anterior: limpa tudo que não é dígito nem '/' e usa o formatter. */
+	private static LocalDate antigoMesAno(String valor) {
+		return YearMonth.parse(valor.replaceAll("[^0-9/]", ""), MES_ANO).atDay(1);
+	}
+
+	private static LocalDate antigoAnoMes(String valor) {
+		return YearMonth.parse(valor.replaceAll("[^0-9/]", ""), ANO_MES).atDay(1);
+	}
+
+	/**
+	 * O antigo também removia o '-', o que fazia toda data ISO falhar. A referência
+	 * mantém o separador e recusa o dia que o formatter ajustaria (31/04 -> 30/04).
+	 */
+	private static LocalDate antigoIso(String valor) {
+		String limpo = valor.replaceAll("[^0-9-]", "");
+		LocalDate data = LocalDate.parse(limpo, ISO);
+		if (!data.format(ISO).equals(limpo)) {
+			throw new DateTimeParseException("Data inexistente", limpo, 0);
+		}
+		return data;
+	}
+
+	private static List<String> ruidos(String valor) {
+		return List.of(valor, " " + valor + " ", "\"" + valor + "\"", valor + "x", "m" + valor);
+	}
+
+	private static void assertEquivalente(List<String> entradas, Function<String, LocalDate> antigo,
+			Function<String, LocalDate> novo) {
+		for (String entrada : entradas) {
+			LocalDate esperado;
+			try {
+				esperado = antigo.apply(entrada);
+			} catch (RuntimeException e) {
+				assertThatThrownBy(() -> novo.apply(entrada))
+						.as("entrada '%s' (antigo falhou com %s)", entrada, e.getMessage())
+						.isInstanceOf(RuntimeException.class);
+				continue;
+			}
+			assertThat(novo.apply(entrada)).as("entrada '%s'", entrada).isEqualTo(esperado);
+		}
+	}
+
+	@Test
+	void parseMesAnoEquivaleAoParseAnterior() {
+		List<String> entradas = new ArrayList<>();
+		for (String ano : ANOS) {
+			for (String mes : MESES) {
+				entradas.addAll(ruidos(mes + "/" + ano));
+			}
+		}
+		assertEquivalente(entradas, UtilsTest::antigoMesAno, Utils::parseMesAno);
+	}
+
+	@Test
+	void parseAnoMesEquivaleAoParseAnterior() {
+		List<String> entradas = new ArrayList<>();
+		for (String ano : ANOS) {
+			for (String mes : MESES) {
+				entradas.addAll(ruidos(ano + "/" + mes));
+			}
+		}
+		assertEquivalente(entradas, UtilsTest::antigoAnoMes, Utils::parseAnoMes);
+	}
+
+	@Test
+	void parseIsoDateEquivaleAoLocalDate() {
+		List<String> entradas = new ArrayList<>();
+		for (String ano : ANOS) {
+			for (String mes : MESES) {
+				for (String dia : DIAS) {
+					entradas.add(ano + "-" + mes + "-" + dia);
+				}
+			}
+		}
+		entradas.add(" 2024-02-29 ");
+		entradas.add("2023-02-29");
+		entradas.add("1900-02-29");
+		entradas.add("2000-02-29");
+		assertEquivalente(entradas, UtilsTest::antigoIso, Utils::parseIsoDate);
+	}
+
+	@Test
+	void recusaEntradaMalformada() {
+		String[] mesAno = { "1/2020", "001/2020", "01/20", "01/20200", "012020", "01-2020", "2020/01",
+				"01/2020/", "/01/2020", "01//2020", "01/20/20", "/", "abc", "//" };
+		for (String entrada : mesAno) {
+			assertThatThrownBy(() -> Utils.parseMesAno(entrada)).as(entrada)
+					.isInstanceOf(DateTimeParseException.class);
+		}
+
+		String[] anoMes = { "2020/1", "20/01", "20200/01", "202001", "01/2020", "2020/01/01" };
+		for (String entrada : anoMes) {
+			assertThatThrownBy(() -> Utils.parseAnoMes(entrada)).as(entrada)
+					.isInstanceOf(DateTimeParseException.class);
+		}
+
+		String[] iso = { "2020-1-01", "2020-01-1", "20-01-01", "2020-01", "2020-01-01-01", "20200101", "2020/01/01",
+				"2020--01" };
+		for (String entrada : iso) {
+			assertThatThrownBy(() -> Utils.parseIsoDate(entrada)).as(entrada)
+					.isInstanceOf(DateTimeParseException.class);
+		}
+	}
+
+	@Test
+	void recusaNuloOuEmBranco() {
+		for (String entrada : new String[] { null, "", "   " }) {
+			assertThatThrownBy(() -> Utils.parseMesAno(entrada)).isInstanceOf(IllegalArgumentException.class);
+			assertThatThrownBy(() -> Utils.parseAnoMes(entrada)).isInstanceOf(IllegalArgumentException.class);
+			assertThatThrownBy(() -> Utils.parseIsoDate(entrada)).isInstanceOf(IllegalArgumentException.class);
+		}
+	}
+
+	@Test
+	void mesCompactoIdaEVolta() {
+		for (int ano = 1; ano <= 9999; ano += 7) {
+			for (int mes = 1; mes <= 12; mes++) {
+				LocalDate data = LocalDate.of(ano, mes, 1);
+				int compacto = Utils.mesCompacto(data);
+
+				assertThat(Utils.inicioDoMes(compacto)).isEqualTo(data);
+				assertThat(Utils.parseAnoMesCompacto(String.format("%04d/%02d", ano, mes))).isEqualTo(compacto);
+				assertThat(Utils.parseMesAnoCompacto(String.format("%02d/%04d", mes, ano))).isEqualTo(compacto);
+			}
+		}
+	}
+
+	@Test
+	void inicioDoMesReaproveitaInstanciasDentroDaFaixa() {
+		for (LocalDate data : new LocalDate[] { LocalDate.of(1900, 1, 1), LocalDate.of(2024, 6, 1), LocalDate.of(2100, 12, 1) }) {
+			int compacto = Utils.mesCompacto(data);
+			assertThat(Utils.inicioDoMes(compacto)).isEqualTo(data).isSameAs(Utils.inicioDoMes(compacto));
+		}
+
+		// fora da faixa: valor certo, sem cache
+		for (LocalDate data : new LocalDate[] { LocalDate.of(1899, 12, 1), LocalDate.of(2101, 1, 1) }) {
+			int compacto = Utils.mesCompacto(data);
+			assertThat(Utils.inicioDoMes(compacto)).isEqualTo(data).isNotSameAs(Utils.inicioDoMes(compacto));
+		}
+	}
+
+	@Test
+	void parseMesAnoDevolveAInstanciaDoCache() {
+		assertThat(Utils.parseMesAno("03/2021")).isSameAs(Utils.parseAnoMes("2021/03"));
+	}
+
+	@Test
+	void bytesAlocadosContaSoAThreadCorrente() throws Exception {
+		long inicio = Utils.bytesAlocadosThread();
+		assertThat(inicio).isPositive();
+
+		// outra thread alocando muito no mesmo intervalo não entra na conta
+		Thread outra = new Thread(() -> {
+			for (int i = 0; i < 64; i++) {
+				lixo = new byte[1 << 20];
+			}
+		});
+		outra.start();
+		outra.join();
+		lixo = new byte[1 << 20];
+
+		assertThat(Utils.bytesAlocadosDesde(inicio)).isBetween(1L << 20, 8L << 20);
+		assertThat(Utils.bytesAlocadosDesde(-1)).isNull();
+	}
+
+	@Test
+	void escreverIsoDateIdaEVolta() {
+		byte[] destino = new byte[10];
+		for (long dia = LocalDate.of(1, 1, 1).toEpochDay(); dia <= LocalDate.of(9999, 12, 31).toEpochDay(); dia += 97) {
+			assertThat(Utils.escreverIsoDate(dia, destino, 0)).isEqualTo(10);
+			String texto = new String(destino, StandardCharsets.US_ASCII);
+
+			assertThat(texto).isEqualTo(LocalDate.ofEpochDay(dia).toString());
+			assertThat(Utils.parseIsoDateEpochDay(texto)).isEqualTo((int) dia);
+		}
+	}
+}